@@ -1,33 +1,61 @@
 package com.codeit.jpastudy.chap01.repository;
 
 import com.codeit.jpastudy.chap01.entity.Product;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.support.SQLExceptionSubclassTranslator;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
+@Repository
+@RequiredArgsConstructor
 public class JdbcProductRepository {
 
-    // PostgreSQL 연결 정보
-    private static final String URL = "jdbc:postgresql://localhost:5432/postgres";
-    private static final String USER = "postgres";
-    private static final String PASSWORD = "postgres";
+    // 한 번의 executeBatch로 전송할 INSERT 개수
+    private static final int BATCH_SIZE = 1000;
+
+    // 스트리밍 조회 시 한 번에 DB에서 끌어오는 행 개수
+    private static final int DEFAULT_FETCH_SIZE = 500;
+
+    // COPY 시 한 번에 서버로 밀어 넣는 버퍼 크기 (약 64KB)
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String INSERT_SQL
+            = "INSERT INTO product (name, price, category) VALUES(?, ?, ?::category_type)";
+
+    private static final String SELECT_ALL_SQL = "SELECT * FROM product ORDER BY id DESC";
+
+    // SQLException을 스프링의 DataAccessException 계층으로 변환 (JdbcTemplate과 같은 방식)
+    // 예외를 삼키고 0을 리턴하면 호출한 쪽은 "0건 처리"와 "실패"를 구분할 수 없습니다.
+    private static final SQLExceptionTranslator EXCEPTION_TRANSLATOR = new SQLExceptionSubclassTranslator();
+
+    // 매번 DriverManager로 새 연결을 맺지 않고, 스프링이 관리하는 커넥션 풀(HikariCP)에서 빌려 씁니다.
+    // close()를 호출하면 실제 연결이 끊기는 게 아니라 풀에 반납됩니다.
+    private final DataSource dataSource;
 
     // 전통적 JDBC 방식의 INSERT
     public void insertProduct(String name, int price, Product.Category category) {
 
         // 1. sql을 직접 문자열로 작성합니다.
-        String sql = "INSERT INTO product (name, price, category) VALUES(?, ?, ?::category_type)";
-
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        try {
-            // 2. 드라이버 커넥터 연동 (데이터베이스 접속 진행)
-            conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        String sql = INSERT_SQL;
 
-            // 3. SQL 실행을 위한 객체를 받아오기
-            pstmt = conn.prepareStatement(sql);
+        // 2. 커넥션 풀에서 연결을 빌려오기 (try-with-resources로 반드시 반납)
+        try (Connection conn = dataSource.getConnection();
+             // 3. SQL 실행을 위한 객체를 받아오기
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             // 4. ?를 채워서 sql을 완성시키기
             pstmt.setString(1, name);
@@ -38,58 +66,183 @@ public class JdbcProductRepository {
             pstmt.executeUpdate();
 
         } catch (SQLException e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                pstmt.close();
-                conn.close();
+            throw translate("insertProduct", INSERT_SQL, e);
+        }
+    }
+
+    // 여러 상품을 한 번에 INSERT (JDBC 배치)
+    // addBatch로 모아 두었다가 executeBatch로 한 번에 전송하기 때문에 왕복 횟수가 BATCH_SIZE 배로 줄어듭니다.
+    // PostgreSQL 드라이버의 reWriteBatchedInserts 옵션을 켜 두면 배치가 multi-row INSERT 한 문장으로 재작성됩니다.
+    public int insertProducts(Collection<Product> products) {
+        if (products.isEmpty()) return 0;
+
+        int inserted = 0;
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            // 전체를 하나의 트랜잭션으로 묶어서 행마다 커밋(fsync)하지 않도록 합니다.
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                int count = 0;
+                for (Product product : products) {
+                    pstmt.setString(1, product.getName());
+                    pstmt.setInt(2, product.getPrice());
+                    pstmt.setString(3, product.getCategory().toString());
+                    pstmt.addBatch();
+
+                    if (++count % BATCH_SIZE == 0) {
+                        inserted += sum(pstmt.executeBatch());
+                    }
+                }
+                if (count % BATCH_SIZE != 0) {
+                    inserted += sum(pstmt.executeBatch());
+                }
+                conn.commit();
             } catch (SQLException e) {
-                e.printStackTrace();
+                conn.rollback();
+                throw e;
+            } finally {
+                // 풀에 반납되는 연결이므로 원래 상태로 되돌려 놓습니다.
+                conn.setAutoCommit(autoCommit);
             }
+
+        } catch (SQLException e) {
+            throw translate("insertProducts", INSERT_SQL, e);
+        }
+        return inserted;
+    }
+
+    // PostgreSQL COPY를 이용한 대량 적재
+    // INSERT 문을 실행하는 대신 CSV 데이터를 COPY 프로토콜로 그대로 흘려 보내기 때문에
+    // SQL 파싱/실행 계획 비용이 없고 배치 INSERT보다 훨씬 빠릅니다. (수천만 건 단위의 야간 적재용)
+    // 상품은 iterator에서 필요할 때마다 하나씩 꺼내 쓰고, 서버가 느리면 writeToCopy가 블로킹되므로
+    // 생산자 쪽도 자연스럽게 속도가 조절됩니다. (전체 데이터를 메모리에 올려 둘 필요 없음)
+    public long copyProducts(Iterator<Product> products) {
+        String sql = "COPY product (name, price, category) FROM STDIN WITH (FORMAT csv)";
+
+        try (Connection conn = dataSource.getConnection()) {
+            // 커넥션 풀의 프록시 연결에서 PostgreSQL 드라이버의 실제 연결을 꺼냅니다.
+            CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+            CopyIn copyIn = copyManager.copyIn(sql);
+
+            try {
+                StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 256);
+                while (products.hasNext()) {
+                    appendCsvRow(buffer, products.next());
+                    if (buffer.length() >= COPY_BUFFER_SIZE) {
+                        writeToCopy(copyIn, buffer);
+                    }
+                }
+                writeToCopy(copyIn, buffer);
+                // 적재된 행 수를 리턴
+                return copyIn.endCopy();
+            } finally {
+                // 도중에 예외가 발생했다면 COPY를 취소해야 연결을 다시 사용할 수 있습니다.
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+
+        } catch (SQLException e) {
+            throw translate("copyProducts", sql, e);
         }
     }
 
     // SELECT 전체 조회
     public List<Product> selectAllProducts() {
         List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM product ORDER BY id DESC";
+        String sql = SELECT_ALL_SQL;
 
         // SELECT는 INSERT, UPDATE, DELETE와는 다르게 sql을 실행하고 나서 후속 조치가 필요합니다. (조회된 내용을 자바 객체로 변환)
         // sql 실행 후 리턴되는 ResultSet 객체를 활용해서 조회 데이터를 자바로 변환합니다.
-        try(Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        try(Connection conn = dataSource.getConnection();
             PreparedStatement pstmt = conn.prepareStatement(sql);
             ResultSet rs = pstmt.executeQuery()) {
 
             // 더 이상 조회되는 행이 없을 때까지 반복문을 진행 시키겠다.
             // rs.next()는 메서드 호출 시 데이터를 한 행씩 지목해 줍니다.
+            // 컬럼 인덱스는 결과 집합당 한 번만 계산합니다.
+            ProductRowMapper mapper = ProductRowMapper.of(rs);
             while (rs.next()) {
-                Product product = new Product();
-                product.setId(rs.getLong("id"));
-                product.setName(rs.getString("name"));
-                product.setPrice(rs.getInt("price"));
-                product.setCategory(Product.Category.valueOf(rs.getString("category")));
-                product.setCreateAt(rs.getTimestamp("create_at").toLocalDateTime());
-                product.setUpdateAt(rs.getTimestamp("update_at").toLocalDateTime());
-                products.add(product);
+                products.add(mapper.map(rs));
             }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        } catch (SQLException e) {
+            throw translate("selectAllProducts", sql, e);
         }
         return products;
     }
 
+    // SELECT 전체 조회 (스트리밍)
+    // selectAllProducts는 모든 행을 리스트에 담기 때문에 테이블이 커지면 메모리가 터집니다.
+    // 여기서는 한 행씩 콜백으로 넘기고 바로 버리기 때문에 테이블 크기와 상관없이 메모리 사용량이 일정합니다.
+    public void forEachProduct(Consumer<Product> action) {
+        forEachProduct(DEFAULT_FETCH_SIZE, action);
+    }
 
+    public void forEachProduct(int fetchSize, Consumer<Product> action) {
+        String sql = SELECT_ALL_SQL;
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            // PostgreSQL 드라이버는 autocommit이 꺼져 있고 fetchSize가 지정된 경우에만
+            // 서버 측 커서를 사용해서 fetchSize 만큼씩 나눠서 가져옵니다. (기본값은 전체 결과를 한 번에 메모리로 읽음)
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                pstmt.setFetchSize(fetchSize);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    ProductRowMapper mapper = ProductRowMapper.of(rs);
+                    while (rs.next()) {
+                        action.accept(mapper.map(rs));
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                // 풀에 반납되는 연결이므로 원래 상태로 되돌려 놓습니다.
+                conn.setAutoCommit(autoCommit);
+            }
 
-}
-
-
-
-
+        } catch (SQLException e) {
+            throw translate("forEachProduct", sql, e);
+        }
+    }
 
+    private void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.length() == 0) return;
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
 
+    // name,price,category 형태의 CSV 한 줄 (이름은 쉼표나 따옴표가 들어갈 수 있어서 항상 따옴표로 감쌉니다)
+    private void appendCsvRow(StringBuilder buffer, Product product) {
+        buffer.append('"').append(product.getName().replace("\"", "\"\"")).append('"')
+                .append(',').append(product.getPrice())
+                .append(',').append(product.getCategory().name())
+                .append('\n');
+    }
 
+    private DataAccessException translate(String task, String sql, SQLException e) {
+        DataAccessException translated = EXCEPTION_TRANSLATOR.translate(task, sql, e);
+        return translated != null ? translated : new UncategorizedSQLException(task, sql, e);
+    }
 
+    // executeBatch의 결과 배열에서 반영된 행 수를 합산
+    // reWriteBatchedInserts 사용 시 드라이버가 SUCCESS_NO_INFO(-2)를 돌려줄 수 있어서 1건으로 계산합니다.
+    private int sum(int[] results) {
+        int total = 0;
+        for (int result : results) {
+            total += (result == Statement.SUCCESS_NO_INFO) ? 1 : result;
+        }
+        return total;
+    }
 
 
 
+}
@@ -0,0 +1,66 @@
+package com.codeit.jpastudy.chap01.repository;
+
+import com.codeit.jpastudy.chap01.entity.Product;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+// ResultSet의 한 행을 chap01 Product로 변환하는 매퍼
+// rs.getLong("id")처럼 컬럼명으로 꺼내면 행마다 컬럼명 -> 인덱스 탐색이 일어납니다.
+// 결과 집합 하나당 한 번만 컬럼 인덱스를 찾아 두고, 행마다는 인덱스로만 값을 꺼냅니다.
+public final class ProductRowMapper {
+
+    // 카테고리 문자열 -> enum 캐시 (valueOf는 호출마다 예외 처리 경로와 맵 조회를 거칩니다)
+    private static final Map<String, Product.Category> CATEGORIES = new HashMap<>();
+
+    static {
+        for (Product.Category category : Product.Category.values()) {
+            CATEGORIES.put(category.name(), category);
+        }
+    }
+
+    private final int idIdx;
+    private final int nameIdx;
+    private final int priceIdx;
+    private final int categoryIdx;
+    private final int createAtIdx;
+    private final int updateAtIdx;
+
+    private ProductRowMapper(ResultSet rs) throws SQLException {
+        this.idIdx = rs.findColumn("id");
+        this.nameIdx = rs.findColumn("name");
+        this.priceIdx = rs.findColumn("price");
+        this.categoryIdx = rs.findColumn("category");
+        this.createAtIdx = rs.findColumn("create_at");
+        this.updateAtIdx = rs.findColumn("update_at");
+    }
+
+    // 결과 집합마다 한 번 호출해서 컬럼 인덱스를 미리 계산합니다.
+    public static ProductRowMapper of(ResultSet rs) throws SQLException {
+        return new ProductRowMapper(rs);
+    }
+
+    public Product map(ResultSet rs) throws SQLException {
+        Product product = new Product();
+        product.setId(rs.getLong(idIdx));
+        product.setName(rs.getString(nameIdx));
+        product.setPrice(rs.getInt(priceIdx));
+        product.setCategory(category(rs.getString(categoryIdx)));
+        // Timestamp를 거치지 않고 바로 LocalDateTime으로 읽기 (중간 객체 생성 X)
+        product.setCreateAt(rs.getObject(createAtIdx, LocalDateTime.class));
+        product.setUpdateAt(rs.getObject(updateAtIdx, LocalDateTime.class));
+        return product;
+    }
+
+    private static Product.Category category(String value) {
+        if (value == null) return null;
+        Product.Category category = CATEGORIES.get(value);
+        if (category == null) {
+            throw new IllegalArgumentException("알 수 없는 카테고리입니다: " + value);
+        }
+        return category;
+    }
+}
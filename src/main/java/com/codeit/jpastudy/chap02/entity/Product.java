@@ -17,7 +17,11 @@ import java.time.LocalDateTime;
 public class Product {
 
     @Id // PK
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // 숫자 자동 증가 전략 사용.
+    // IDENTITY 전략은 INSERT를 실행해야 PK를 알 수 있어서 persist 즉시 INSERT가 나가고, JDBC 배치가 꺼집니다.
+    // 시퀀스 전략은 PK를 미리 받아 둘 수 있어서 INSERT를 모았다가 배치로 보낼 수 있습니다.
+    // allocationSize 만큼 시퀀스 값을 한 번에 예약하기 때문에 50건마다 한 번만 시퀀스를 호출합니다. (pooled 옵티마이저)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prod_seq_generator")
+    @SequenceGenerator(name = "prod_seq_generator", sequenceName = "tbl_product_seq", allocationSize = 50)
     @Column(name = "prod_id")
     private Long id;
 
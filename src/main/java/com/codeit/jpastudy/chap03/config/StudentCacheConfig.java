@@ -0,0 +1,48 @@
+package com.codeit.jpastudy.chap03.config;
+
+import com.codeit.jpastudy.chap03.dto.StudentSummary;
+import com.codeit.jpastudy.chap03.service.StudentQueryService.CityMajor;
+import com.codeit.jpastudy.chap03.service.StudentQueryService.NameOrCity;
+import com.codeit.jpastudy.common.cache.LocalQueryResultCache;
+import com.codeit.jpastudy.common.cache.QueryResultCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class StudentCacheConfig {
+
+    // 검색어 -> 검색 결과 총 개수
+    @Bean
+    public QueryResultCache<String, Long> studentCountCache(
+            @Value("${study.student.count-cache.max-size:1000}") int maxSize,
+            @Value("${study.student.count-cache.ttl:30s}") Duration ttl) {
+        return new LocalQueryResultCache<>(maxSize, ttl);
+    }
+
+    // StudentQueryService의 조회 결과 캐시
+    // 다른 캐시 구현으로 바꾸고 싶다면 QueryResultCache 구현체만 교체하면 됩니다.
+    @Bean
+    public QueryResultCache<String, List<StudentSummary>> studentByNameCache(
+            @Value("${study.student.query-cache.max-size:10000}") int maxSize,
+            @Value("${study.student.query-cache.ttl:60s}") Duration ttl) {
+        return new LocalQueryResultCache<>(maxSize, ttl);
+    }
+
+    @Bean
+    public QueryResultCache<CityMajor, List<StudentSummary>> studentByCityMajorCache(
+            @Value("${study.student.query-cache.max-size:10000}") int maxSize,
+            @Value("${study.student.query-cache.ttl:60s}") Duration ttl) {
+        return new LocalQueryResultCache<>(maxSize, ttl);
+    }
+
+    @Bean
+    public QueryResultCache<NameOrCity, List<StudentSummary>> studentByNameOrCityCache(
+            @Value("${study.student.query-cache.max-size:10000}") int maxSize,
+            @Value("${study.student.query-cache.ttl:60s}") Duration ttl) {
+        return new LocalQueryResultCache<>(maxSize, ttl);
+    }
+}
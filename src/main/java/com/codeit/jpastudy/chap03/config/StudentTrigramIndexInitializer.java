@@ -0,0 +1,47 @@
+package com.codeit.jpastudy.chap03.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * tbl_student의 부분 문자열 검색용 트라이그램(pg_trgm) GIN 인덱스 생성
+ * LIKE '%검색어%'는 앞이 와일드카드라서 일반 B-tree 인덱스를 사용할 수 없고 항상 테이블 전체를 읽습니다.
+ * pg_trgm의 GIN 인덱스는 문자열을 3글자 조각으로 쪼개서 색인하기 때문에 LIKE/ILIKE '%검색어%'도 인덱스로 처리됩니다.
+ * JPA의 @Index로는 GIN 인덱스를 표현할 수 없어서 하이버네이트가 테이블을 만든 뒤 직접 생성합니다.
+ * CREATE EXTENSION은 슈퍼유저나 DB 소유자 권한이 필요하므로 기본값은 꺼져 있습니다. (study.student.trigram-index.enabled=true 일 때만 동작)
+ * 권한이 없어서 실패해도 애플리케이션 기동은 계속됩니다. (인덱스 없이 LIKE 검색, 유사도 검색 findSimilarByName은 사용 불가)
+ * 확장을 설치할 수 없는 환경이라면 메모리 n-gram 색인(study.student.ngram-index.enabled)을 사용하세요.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "study.student.trigram-index.enabled", havingValue = "true")
+public class StudentTrigramIndexInitializer implements ApplicationRunner {
+
+    private static final String[] DDL = {
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_student_name_trgm ON tbl_student USING gin (stu_name gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_student_major_trgm ON tbl_student USING gin (major gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_student_city_trgm ON tbl_student USING gin (city gin_trgm_ops)"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            for (String sql : DDL) {
+                jdbcTemplate.execute(sql);
+            }
+        } catch (DataAccessException e) {
+            log.warn("트라이그램 인덱스를 만들지 못했습니다. 부분 검색은 인덱스 없이 동작합니다. 원인: {}",
+                    e.getMostSpecificCause().getMessage());
+        }
+    }
+}
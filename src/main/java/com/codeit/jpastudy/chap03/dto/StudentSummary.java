@@ -0,0 +1,14 @@
+package com.codeit.jpastudy.chap03.dto;
+
+import com.codeit.jpastudy.chap03.entity.Student;
+
+import java.util.UUID;
+
+// 조회 결과 캐시에 보관하는 학생 정보 (불변)
+// 엔터티는 특정 세션에 묶인 변경 가능한 객체라서 여러 요청/스레드가 함께 보는 캐시에 넣으면 안 됩니다.
+public record StudentSummary(UUID id, String name, String city, String major) {
+
+    public static StudentSummary from(Student student) {
+        return new StudentSummary(student.getId(), student.getName(), student.getCity(), student.getMajor());
+    }
+}
@@ -1,21 +1,30 @@
 package com.codeit.jpastudy.chap03.entity;
 
+import com.codeit.jpastudy.common.id.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
 
-@Getter @ToString
+import java.util.UUID;
+
+@Getter @ToString(exclude = "loadedKeys")
 @NoArgsConstructor
-@AllArgsConstructor
-@Builder
 
 @Entity
-@Table(name = "tbl_student")
+@EntityListeners(StudentListener.class) // 저장/수정/삭제 시 이벤트 발행
+@Table(name = "tbl_student", indexes = {
+        // 키셋 페이징 (stu_name, stu_id) 정렬/탐색용 인덱스
+        @Index(name = "idx_student_name_id", columnList = "stu_name, stu_id")
+})
 public class Student {
 
     @Id
     @Column(name = "stu_id")
-    @GeneratedValue(strategy = GenerationType.UUID) // PK를 UUID로 생성
-    private String id;
+    // PK를 UUID로 생성
+    // String으로 저장하면 varchar(36바이트 이상) 문자열 비교가 되고, java.util.UUID로 매핑하면
+    // PostgreSQL의 uuid 타입(16바이트)으로 저장되어 인덱스 크기와 비교 비용이 줄어듭니다.
+    // 시간 순서 UUID(v7)를 사용해서 새 행이 항상 인덱스 끝에 추가되도록 합니다.
+    @UuidV7
+    private UUID id;
 
     @Column(name = "stu_name", nullable = false)
     private String name;
@@ -24,6 +33,29 @@ public class Student {
 
     private String major;
 
+    // 마지막으로 DB와 맞춰진 시점(조회/저장/수정 직후)의 검색 컬럼 값 (DB에 저장하지 않음)
+    // 수정 이벤트에서 이전 값에 해당하는 캐시만 골라서 무효화할 때 사용합니다.
+    @Transient
+    private SearchKeys loadedKeys;
+
+    public record SearchKeys(String name, String city, String major) {
+    }
+
+    @Builder
+    public Student(UUID id, String name, String city, String major) {
+        this.id = id;
+        this.name = name;
+        this.city = city;
+        this.major = major;
+    }
+
+    // 엔터티 리스너(StudentListener)가 먼저 호출된 뒤에 실행되므로, 수정 이벤트에는 수정 전 값이 담깁니다.
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void captureLoadedKeys() {
+        loadedKeys = new SearchKeys(name, city, major);
+    }
 }
 
 
@@ -0,0 +1,37 @@
+package com.codeit.jpastudy.chap03.entity;
+
+import com.codeit.jpastudy.chap03.event.StudentChangedEvent;
+import com.codeit.jpastudy.chap03.event.StudentChangedEvent.ChangeType;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Student 엔터티 리스너
+ * 스프링 부트는 하이버네이트가 엔터티 리스너를 스프링 빈으로 만들도록 설정해 주기 때문에 의존성 주입이 가능합니다.
+ * 주의: JPQL 벌크 연산(@Modifying)은 영속성 컨텍스트를 거치지 않아서 리스너가 호출되지 않습니다.
+ */
+@Component
+@RequiredArgsConstructor
+public class StudentListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostPersist
+    public void onPersist(Student student) {
+        publisher.publishEvent(new StudentChangedEvent(student, ChangeType.PERSIST));
+    }
+
+    @PostUpdate
+    public void onUpdate(Student student) {
+        publisher.publishEvent(new StudentChangedEvent(student, ChangeType.UPDATE, student.getLoadedKeys()));
+    }
+
+    @PostRemove
+    public void onRemove(Student student) {
+        publisher.publishEvent(new StudentChangedEvent(student, ChangeType.REMOVE));
+    }
+}
@@ -0,0 +1,16 @@
+package com.codeit.jpastudy.chap03.event;
+
+import com.codeit.jpastudy.chap03.entity.Student;
+
+// 학생이 저장/수정/삭제되었을 때 발행되는 이벤트 (캐시 무효화, 검색 색인 갱신 등에 사용)
+// previous: 수정 전 이름/도시/전공 (알 수 없으면 null)
+public record StudentChangedEvent(Student student, ChangeType type, Student.SearchKeys previous) {
+
+    public StudentChangedEvent(Student student, ChangeType type) {
+        this(student, type, null);
+    }
+
+    public enum ChangeType {
+        PERSIST, UPDATE, REMOVE
+    }
+}
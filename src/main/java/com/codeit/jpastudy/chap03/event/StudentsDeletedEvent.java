@@ -0,0 +1,10 @@
+package com.codeit.jpastudy.chap03.event;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// 벌크 삭제 한 번에 한 번만 발행되는 이벤트 (삭제된 학생마다 StudentChangedEvent를 보내지 않음)
+// 캐시는 중복을 제거한 이름/도시/전공 값으로 한 번씩만 무효화하고, 검색 색인은 ids로 한 번에 지웁니다.
+public record StudentsDeletedEvent(List<UUID> ids, Set<String> names, Set<String> cities, Set<String> majors) {
+}
@@ -0,0 +1,24 @@
+package com.codeit.jpastudy.chap03.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * 영속성 컨텍스트/캐시와 어긋나지 않는 벌크 삭제 (StudentRepository의 사용자 정의 조각)
+ * @Modifying 벌크 DELETE는 영속성 컨텍스트를 거치지 않아서 이미 조회해 둔 엔터티가 그대로 남고,
+ * clearAutomatically = true를 주면 관계없는 엔터티까지 영속성 컨텍스트 전체가 비워집니다.
+ * 여기서는 DELETE ... RETURNING으로 지운 행의 id를 돌려받아서, 삭제된 엔터티만 골라서 분리(detach)합니다.
+ * 삭제가 끝나면 StudentsDeletedEvent를 호출당 한 번 발행합니다. (캐시, 검색 색인 갱신)
+ */
+public interface StudentBulkRepository {
+
+    // DELETE 한 문장으로 삭제 (조회 후 삭제 사이에 추가된 행도 함께 삭제됨)
+    @Transactional
+    int deleteByNameAndCityInBatches(String name, String city);
+
+    // ids를 batchSize개씩 나눠서 DELETE ... WHERE stu_id = ANY(배열) 실행 (묶음당 왕복 1번)
+    @Transactional
+    int deleteAllByIdInBatches(Collection<UUID> ids, int batchSize);
+}
@@ -0,0 +1,114 @@
+package com.codeit.jpastudy.chap03.repository;
+
+import com.codeit.jpastudy.chap03.entity.Student;
+import com.codeit.jpastudy.chap03.event.StudentsDeletedEvent;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// 클래스 이름은 반드시 "조각 인터페이스 이름 + Impl" 이어야 스프링 데이터가 찾아서 연결합니다.
+@RequiredArgsConstructor
+public class StudentBulkRepositoryImpl implements StudentBulkRepository {
+
+    // 조건에 맞는 행을 한 문장으로 지우고, 지운 행의 id와 캐시 무효화에 필요한 컬럼만 돌려받습니다.
+    // 먼저 SELECT 하고 나중에 DELETE 하는 방식과 달리, 그 사이에 추가된 행을 놓치지 않습니다.
+    private static final String DELETE_BY_NAME_AND_CITY_SQL =
+            "DELETE FROM tbl_student WHERE stu_name = ? AND city = ? RETURNING stu_id, major";
+
+    // id 묶음을 배열 파라미터 하나로 넘겨서 묶음당 한 번만 왕복합니다.
+    private static final String DELETE_BY_IDS_SQL =
+            "DELETE FROM tbl_student WHERE stu_id = ANY(?) RETURNING stu_id, stu_name, city, major";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher publisher;
+
+    @Override
+    public int deleteByNameAndCityInBatches(String name, String city) {
+        // 아직 DB에 반영되지 않은 변경사항을 먼저 보내야 삭제 결과가 정확합니다.
+        em.flush();
+
+        List<UUID> ids = new ArrayList<>();
+        Set<String> majors = new HashSet<>();
+        jdbcTemplate.query(DELETE_BY_NAME_AND_CITY_SQL, (RowCallbackHandler) rs -> {
+            ids.add(rs.getObject(1, UUID.class));
+            majors.add(rs.getString(2));
+        }, name, city);
+        if (ids.isEmpty()) return 0;
+
+        detach(ids);
+        publisher.publishEvent(new StudentsDeletedEvent(ids, Set.of(name), Set.of(city), majors));
+        return ids.size();
+    }
+
+    @Override
+    public int deleteAllByIdInBatches(Collection<UUID> ids, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("배치 크기는 0보다 커야 합니다.");
+        }
+        List<UUID> idList = new ArrayList<>(ids);
+        if (idList.isEmpty()) return 0;
+
+        em.flush();
+
+        // 실제로 지워진 행의 id와 (이름, 도시, 전공) 값만 모아서 이벤트를 한 번 발행
+        List<UUID> deleted = new ArrayList<>(idList.size());
+        Set<String> names = new HashSet<>();
+        Set<String> cities = new HashSet<>();
+        Set<String> majors = new HashSet<>();
+        for (int from = 0; from < idList.size(); from += batchSize) {
+            List<UUID> chunk = idList.subList(from, Math.min(from + batchSize, idList.size()));
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(DELETE_BY_IDS_SQL);
+                Array array = con.createArrayOf("uuid", chunk.toArray());
+                ps.setArray(1, array);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                deleted.add(rs.getObject(1, UUID.class));
+                names.add(rs.getString(2));
+                cities.add(rs.getString(3));
+                majors.add(rs.getString(4));
+            });
+        }
+        if (deleted.isEmpty()) return 0;
+
+        detach(deleted);
+        publisher.publishEvent(new StudentsDeletedEvent(deleted, names, cities, majors));
+        return deleted.size();
+    }
+
+    // 삭제된 학생 중 영속성 컨텍스트에 올라와 있는 것만 분리하고, 2차 캐시에서 제거
+    // 세션 통계(공개 API)로 지금 관리 중인 엔터티 키만 훑기 때문에, 삭제한 id마다 프록시를 만들지 않습니다.
+    private void detach(List<UUID> ids) {
+        Set<UUID> deleted = new HashSet<>(ids);
+        List<Object> managedIds = new ArrayList<>();
+        for (EntityKey key : em.unwrap(Session.class).getStatistics().getEntityKeys()) {
+            if (Student.class.getName().equals(key.getEntityName()) && deleted.contains(key.getIdentifier())) {
+                managedIds.add(key.getIdentifier());
+            }
+        }
+        // 이미 관리 중인 id만 골랐으므로 getReference는 그 엔터티 객체를 그대로 돌려줍니다.
+        for (Object id : managedIds) {
+            em.detach(em.getReference(Student.class, id));
+        }
+
+        Cache secondLevelCache = em.getEntityManagerFactory().getCache();
+        for (UUID id : ids) {
+            secondLevelCache.evict(Student.class, id);
+        }
+    }
+}
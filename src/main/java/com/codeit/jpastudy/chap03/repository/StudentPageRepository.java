@@ -3,17 +3,27 @@ package com.codeit.jpastudy.chap03.repository;
 import com.codeit.jpastudy.chap03.entity.Student;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
+import java.util.UUID;
 
-public interface StudentPageRepository extends JpaRepository<Student, String> {
+public interface StudentPageRepository extends JpaRepository<Student, UUID> {
 
     // 학생의 이름에 특정 단어가 포함된 걸 조회 + 페이징 정보
     // 커스텀 메서드를 만들 때 페이지 정보를 얻고 싶다면 Pageable을 매개값으로 받으세요. 그리고 리턴은 Page로 리턴하세요.
     Page<Student> findByNameContaining(String name, Pageable pageable);
 
+    // Page는 매번 같은 조건의 COUNT 쿼리를 추가로 실행합니다.
+    // Slice로 리턴하면 COUNT 없이 size + 1개를 조회해서 다음 페이지가 있는지만 판단합니다. (무한 스크롤)
+    Slice<Student> findSliceByNameContaining(String name, Pageable pageable);
+
+    long countByNameContaining(String name);
+
     /////////////////////////////////////////////////////////////////////////////////////
 
     // JPA의 정렬은 JPQL에다가 ORDER BY를 작성하셔도 정렬은 가능하긴 합니다만, 쿼리 메서드 정렬과 매개값을 통한 정렬을 소개합니다.
@@ -23,6 +33,19 @@ public interface StudentPageRepository extends JpaRepository<Student, String> {
 
     List<Student> findByNameContaining(String name, Sort sort);
 
+    /////////////////////////////////////////////////////////////////////////////////////
+
+    // 키셋(seek) 페이징
+    // OFFSET 페이징은 10000페이지를 보려면 앞의 행들을 전부 읽고 버려야 하고, 매번 COUNT 쿼리도 실행됩니다.
+    // 키셋 페이징은 마지막으로 본 행의 정렬 키 다음부터 읽기 때문에 몇 번째 페이지든 비용이 같습니다.
+    // 정렬 키는 반드시 유일해야 하므로 이름이 같은 학생을 구분하기 위해 id를 함께 정렬합니다.
+    Window<Student> findFirst20ByNameContainingOrderByNameAscIdAsc(String name, ScrollPosition position);
+
+    // 클라이언트가 넘겨준 토큰(StudentScrollCursor)으로 이어서 조회. 토큰이 null이면 첫 페이지
+    default Window<Student> scrollByNameContaining(String name, String cursor) {
+        return findFirst20ByNameContainingOrderByNameAscIdAsc(name, StudentScrollCursor.decode(cursor));
+    }
+
 
 }
 
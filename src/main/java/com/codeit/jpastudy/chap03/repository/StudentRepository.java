@@ -1,5 +1,6 @@
 package com.codeit.jpastudy.chap03.repository;
 
+import com.codeit.jpastudy.chap03.dto.StudentNameCity;
 import com.codeit.jpastudy.chap03.entity.Student;
 import jakarta.persistence.Tuple;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,8 +10,9 @@ import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
-public interface StudentRepository extends JpaRepository<Student, String> {
+public interface StudentRepository extends JpaRepository<Student, UUID>, StudentBulkRepository {
 
     // JPA 쿼리 메서드 -> 메서드 이름으로 jpa가 쿼리를 만듭니다.
     // pk 관련 메서드는 기본으로 제공되지만, 다른 컬럼을 이용한 sql은 직접 생성해야 합니다.
@@ -22,6 +24,10 @@ public interface StudentRepository extends JpaRepository<Student, String> {
     // WHERE major LIKE '%major%'
     List<Student> findByMajorContaining(String major);
 
+    List<Student> findByNameContaining(String name);
+
+    List<Student> findByCityContaining(String city);
+
     // WHERE major LIKE 'major%'
     List<Student> findByMajorStartingWith(String major);
 
@@ -52,10 +58,42 @@ public interface StudentRepository extends JpaRepository<Student, String> {
     @Query("SELECT s.name as name, s.city as city FROM Student s WHERE s.name LIKE CONCAT('%', ?1, '%')")
     List<Tuple> searchByNameWithJPQL(String name);
 
+    // Tuple 대신 DTO(record)로 받기 -> 생성자 표현식(new)
+    // 필요한 컬럼만 SELECT하고 타입이 정해진 객체로 바로 받을 수 있습니다. (문자열 키로 꺼낼 필요 X)
+    @Query("SELECT new com.codeit.jpastudy.chap03.dto.StudentNameCity(s.name, s.city) FROM Student s WHERE s.name LIKE CONCAT('%', ?1, '%')")
+    List<StudentNameCity> searchNameCityByName(String name);
+
+    // 쿼리 메서드도 리턴 타입을 DTO로 지정하면 생성자 파라미터에 해당하는 컬럼만 SELECT 합니다.
+    List<StudentNameCity> findNameCityByCity(String city);
+
+    List<StudentNameCity> findNameCityByMajorContaining(String major);
+
     // 도시명으로 학생 1명을 단일 조회 (PK로 조회하는 걸 권장)
     @Query("SELECT s FROM Student s WHERE s.city = ?1")
     Optional<Student> getByCityWithJPQL(String city);
 
+    /////////////////////////////////////////////////////////////////////////////////////////////////
+
+    // 트라이그램(pg_trgm) 인덱스를 사용하는 검색 (StudentTrigramIndexInitializer에서 인덱스 생성)
+    // ILIKE도 트라이그램 GIN 인덱스로 처리되기 때문에 대소문자 구분 없는 부분 검색이 가능합니다.
+    // 검색어가 3글자 미만이면 트라이그램을 충분히 뽑을 수 없어서 인덱스 효율이 떨어집니다.
+    @Query(value = "SELECT * FROM tbl_student WHERE stu_name ILIKE CONCAT('%', :name, '%')", nativeQuery = true)
+    List<Student> searchByNameTrgm(@Param("name") String name);
+
+    @Query(value = "SELECT * FROM tbl_student WHERE major ILIKE CONCAT('%', :major, '%')", nativeQuery = true)
+    List<Student> searchByMajorTrgm(@Param("major") String major);
+
+    // 오타가 있어도 비슷한 이름을 찾는 유사도 검색 (% 연산자도 GIN 인덱스 사용)
+    @Query(value = """
+            SELECT * FROM tbl_student
+            WHERE stu_name % :name
+            ORDER BY similarity(stu_name, :name) DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Student> findSimilarByName(@Param("name") String name, @Param("limit") int limit);
+
+    // 주의: 벌크 DELETE는 영속성 컨텍스트를 거치지 않습니다. 이미 조회한 엔터티를 함께 정리하려면
+    // StudentBulkRepository의 deleteByNameAndCityInBatches를 사용하세요.
     @Modifying // SELECT 아니면 무조건 붙이세요! JPQL은 기본 SELECT를 기반으로 동작합니다.
     @Query("DELETE FROM Student s WHERE s.name = ?1 AND s.city = ?2")
     void deleteByNameAndCityWithJPQL(String name, String city);
@@ -0,0 +1,56 @@
+package com.codeit.jpastudy.chap03.repository;
+
+import com.codeit.jpastudy.chap03.entity.Student;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 키셋 페이징의 "다음 페이지 토큰"
+ * 마지막으로 본 학생의 (이름, id)를 문자열 하나로 인코딩해서 클라이언트에게 넘겨주고,
+ * 다음 요청 때 다시 받아서 WHERE (stu_name, stu_id) > (?, ?) 조건으로 이어서 조회합니다.
+ */
+public final class StudentScrollCursor {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private StudentScrollCursor() {
+    }
+
+    // 현재 윈도우의 마지막 행 기준 토큰 (다음 페이지가 없으면 null)
+    public static String next(Window<Student> window) {
+        if (window.isEmpty() || !window.hasNext()) return null;
+        return encode(window.positionAt(window.size() - 1));
+    }
+
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("키셋 위치만 토큰으로 변환할 수 있습니다.");
+        }
+        Map<String, Object> keys = keyset.getKeys();
+        String raw = keys.get("name") + String.valueOf(SEPARATOR) + keys.get("id");
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 토큰이 없으면 첫 페이지
+    public static ScrollPosition decode(String token) {
+        if (token == null || token.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int idx = raw.indexOf(SEPARATOR);
+        if (idx < 0) {
+            throw new IllegalArgumentException("잘못된 페이지 토큰입니다: " + token);
+        }
+        return ScrollPosition.forward(Map.of(
+                "name", raw.substring(0, idx),
+                "id", UUID.fromString(raw.substring(idx + 1))
+        ));
+    }
+}
@@ -0,0 +1,461 @@
+package com.codeit.jpastudy.chap03.search;
+
+import com.codeit.jpastudy.chap03.entity.Student;
+import com.codeit.jpastudy.chap03.event.StudentChangedEvent;
+import com.codeit.jpastudy.chap03.event.StudentsDeletedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 학생 이름/도시/전공의 부분 문자열 검색용 메모리 색인 (n-gram 역색인, n = 3)
+ * pg_trgm 확장을 설치할 수 없는 환경을 위한 대안입니다. (study.student.ngram-index.enabled=true 일 때만 동작)
+ *
+ * 문자열을 3글자 조각(트라이그램)으로 쪼개서 "조각 -> 그 조각을 가진 문서 번호 목록"을 저장해 두고,
+ * 검색어의 조각들이 모두 들어있는 문서 번호를 교집합으로 찾습니다.
+ * - 학생 id마다 int 문서 번호를 붙이고, 문서 목록은 int 배열에 오름차순으로 저장 (박싱 없음)
+ * - 트라이그램 -> 문서 목록 맵도 long 키를 그대로 쓰는 오픈 어드레싱 맵
+ * - 삭제/수정된 문서는 표시만 해 두었다가 전체의 1/4을 넘으면 문서 번호를 다시 매겨 압축합니다.
+ * - 필드 값 자체는 저장하지 않습니다. 결과는 후보 id이므로 DB에서 엔터티를 채운 뒤 실제 포함 여부를 다시 확인해야 합니다.
+ * - 검색어가 3글자 미만이면 색인으로 답할 수 없어서 empty를 리턴합니다. (DB로 조회)
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "study.student.ngram-index.enabled", havingValue = "true")
+public class StudentNgramIndex {
+
+    public enum Field {
+        NAME, CITY, MAJOR
+    }
+
+    private static final int N = 3;
+
+    // 삭제 표시된 문서가 이 비율을 넘으면 압축 (너무 작은 색인은 압축하지 않음)
+    private static final double COMPACT_RATIO = 0.25;
+    private static final int COMPACT_MIN_DOCS = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 필드별 역색인 (트라이그램 -> 문서 번호 목록)
+    private final Map<Field, LongIntListMap> postings = new EnumMap<>(Field.class);
+
+    // 문서 번호 <-> 학생 id (UUID 객체 대신 long 두 개로 보관)
+    private DocTable docByStudentId = new DocTable();
+    private long[] idMsb = new long[1024];
+    private long[] idLsb = new long[1024];
+    private int nextDoc;
+
+    // 삭제/수정되어 더 이상 유효하지 않은 문서 번호
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    // 애플리케이션이 뜨면 전체 학생을 읽어서 색인을 만듭니다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docByStudentId = new DocTable();
+            idMsb = new long[1024];
+            idLsb = new long[1024];
+            nextDoc = 0;
+            deleted.clear();
+            deletedCount = 0;
+
+            // 엔터티로 만들지 않고 필요한 컬럼만 서버 측 커서로 조금씩 읽습니다. (메모리 일정)
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("SELECT stu_id, stu_name, city, major FROM tbl_student");
+                ps.setFetchSize(5000);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                add(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3), rs.getString(4));
+            }));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 커밋된 변경만 반영 (롤백된 저장/삭제가 색인에 남지 않도록)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStudentChanged(StudentChangedEvent event) {
+        Student student = event.student();
+        UUID id = student.getId();
+
+        lock.writeLock().lock();
+        try {
+            remove(id);
+            if (event.type() != StudentChangedEvent.ChangeType.REMOVE) {
+                add(id, student.getName(), student.getCity(), student.getMajor());
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 벌크 삭제는 락을 한 번만 잡고 지운 뒤 압축 여부도 한 번만 확인합니다.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStudentsDeleted(StudentsDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (UUID id : event.ids()) {
+                remove(id);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 해당 필드에 term이 포함될 수 있는 학생 id 후보 목록
+     * 색인으로 답할 수 없는 검색어(3글자 미만)라면 empty
+     */
+    public Optional<List<UUID>> candidates(Field field, String term) {
+        if (term == null || term.length() < N) return Optional.empty();
+
+        long[] grams = grams(term);
+
+        lock.readLock().lock();
+        try {
+            LongIntListMap index = postings.get(field);
+            if (index == null) return Optional.of(List.of());
+
+            // 가장 짧은 목록부터 교집합을 구해야 비교 횟수가 적습니다.
+            List<IntList> lists = new ArrayList<>(grams.length);
+            for (long gram : grams) {
+                IntList list = index.get(gram);
+                if (list == null) return Optional.of(List.of());
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(l -> l.size));
+
+            int[] result = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+            int size = result.length;
+            for (int i = 1; i < lists.size() && size > 0; i++) {
+                size = intersect(result, size, lists.get(i));
+            }
+
+            List<UUID> ids = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int doc = result[i];
+                if (!deleted.get(doc)) {
+                    ids.add(new UUID(idMsb[doc], idLsb[doc]));
+                }
+            }
+            return Optional.of(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByStudentId.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 쓰기 락을 잡은 상태에서만 호출
+    private void add(UUID id, String name, String city, String major) {
+        int doc = nextDoc++;
+        if (doc == idMsb.length) {
+            idMsb = Arrays.copyOf(idMsb, idMsb.length * 2);
+            idLsb = Arrays.copyOf(idLsb, idLsb.length * 2);
+        }
+        idMsb[doc] = id.getMostSignificantBits();
+        idLsb[doc] = id.getLeastSignificantBits();
+        docByStudentId.put(idMsb[doc], idLsb[doc], doc);
+
+        index(Field.NAME, name, doc);
+        index(Field.CITY, city, doc);
+        index(Field.MAJOR, major, doc);
+    }
+
+    // 쓰기 락을 잡은 상태에서만 호출
+    private void remove(UUID id) {
+        int doc = docByStudentId.remove(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (doc >= 0) {
+            deleted.set(doc);
+            deletedCount++;
+        }
+    }
+
+    // 쓰기 락을 잡은 상태에서만 호출
+    // 삭제 표시가 쌓이면 메모리도 교집합 비용도 계속 커지므로, 살아있는 문서만 남기고 번호를 앞으로 당깁니다.
+    // 번호를 다시 매겨도 상대 순서는 그대로라서 각 목록의 정렬은 유지됩니다. (DB를 다시 읽지 않음)
+    private void compactIfNeeded() {
+        if (nextDoc < COMPACT_MIN_DOCS || deletedCount < nextDoc * COMPACT_RATIO) return;
+
+        int[] remap = new int[nextDoc];
+        int live = 0;
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = live;
+                idMsb[live] = idMsb[doc];
+                idLsb[live] = idLsb[doc];
+                live++;
+            }
+        }
+
+        for (Map.Entry<Field, LongIntListMap> entry : postings.entrySet()) {
+            LongIntListMap old = entry.getValue();
+            LongIntListMap compacted = new LongIntListMap();
+            for (int i = 0; i < old.values.length; i++) {
+                IntList list = old.values[i];
+                if (list == null) continue;
+                list.remap(remap);
+                if (list.size > 0) compacted.insert(old.keys[i], list);
+            }
+            entry.setValue(compacted);
+        }
+        docByStudentId.remap(remap);
+
+        nextDoc = live;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private void index(Field field, String value, int doc) {
+        if (value == null || value.length() < N) return;
+        LongIntListMap index = postings.computeIfAbsent(field, f -> new LongIntListMap());
+        for (long gram : grams(value)) {
+            // 문서 번호는 항상 증가하므로 뒤에 붙이기만 해도 정렬이 유지됩니다.
+            index.getOrCreate(gram).add(doc);
+        }
+    }
+
+    // 3글자 조각을 long 하나로 압축 (char 16비트 x 3), 중복을 뺀 오름차순 배열
+    private static long[] grams(String value) {
+        String s = value.toLowerCase(Locale.ROOT);
+        long[] grams = new long[Math.max(0, s.length() - N + 1)];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int unique = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (unique == 0 || grams[unique - 1] != grams[i]) {
+                grams[unique++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, unique);
+    }
+
+    // 정렬된 두 목록의 교집합을 result 앞쪽에 덮어쓰고 그 크기를 리턴
+    private static int intersect(int[] result, int size, IntList other) {
+        int i = 0, j = 0, k = 0;
+        while (i < size && j < other.size) {
+            int a = result[i], b = other.values[j];
+            if (a == b) {
+                result[k++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return k;
+    }
+
+    // 박싱 없는 int 목록
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1));
+            }
+            values[size++] = value;
+        }
+
+        // 삭제된 문서(-1)는 빼고 새 번호로 바꿔서 앞으로 당김, 많이 비었으면 배열도 줄입니다.
+        void remap(int[] remap) {
+            int k = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[values[i]];
+                if (doc >= 0) values[k++] = doc;
+            }
+            size = k;
+            if (size < values.length >> 2) {
+                values = Arrays.copyOf(values, Math.max(4, size));
+            }
+        }
+    }
+
+    // 학생 id(msb, lsb) -> 문서 번호 맵 (오픈 어드레싱, 선형 탐사)
+    // UUID/Integer 객체와 엔트리 객체 없이 배열 세 개로 보관합니다. 빈 칸은 docs[i] == -1
+    private static final class DocTable {
+        long[] msb = new long[16];
+        long[] lsb = new long[16];
+        int[] docs = newDocs(16);
+        int size;
+
+        void put(long hi, long lo, int doc) {
+            if ((size + 1) * 4 > docs.length * 3) {
+                grow();
+            }
+            int mask = docs.length - 1;
+            int i = slot(hi, lo, mask);
+            while (docs[i] != -1) {
+                if (msb[i] == hi && lsb[i] == lo) {
+                    docs[i] = doc;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            msb[i] = hi;
+            lsb[i] = lo;
+            docs[i] = doc;
+            size++;
+        }
+
+        // 지운 문서 번호를 리턴, 없으면 -1
+        int remove(long hi, long lo) {
+            int mask = docs.length - 1;
+            int i = slot(hi, lo, mask);
+            while (docs[i] != -1 && (msb[i] != hi || lsb[i] != lo)) {
+                i = (i + 1) & mask;
+            }
+            int doc = docs[i];
+            if (doc == -1) return -1;
+
+            // 묘비 대신 뒤따르는 엔트리를 빈 칸으로 당겨서 탐사 체인이 끊기지 않게 합니다.
+            for (int j = (i + 1) & mask; docs[j] != -1; j = (j + 1) & mask) {
+                int home = slot(msb[j], lsb[j], mask);
+                boolean stays = i <= j ? (home > i && home <= j) : (home > i || home <= j);
+                if (!stays) {
+                    msb[i] = msb[j];
+                    lsb[i] = lsb[j];
+                    docs[i] = docs[j];
+                    i = j;
+                }
+            }
+            docs[i] = -1;
+            size--;
+            return doc;
+        }
+
+        // 압축 후 문서 번호를 새 번호로 교체 (맵에는 살아있는 문서만 있으므로 키는 그대로)
+        void remap(int[] remap) {
+            for (int i = 0; i < docs.length; i++) {
+                if (docs[i] != -1) docs[i] = remap[docs[i]];
+            }
+        }
+
+        private void grow() {
+            long[] oldMsb = msb;
+            long[] oldLsb = lsb;
+            int[] oldDocs = docs;
+            msb = new long[oldDocs.length * 2];
+            lsb = new long[oldDocs.length * 2];
+            docs = newDocs(oldDocs.length * 2);
+            int mask = docs.length - 1;
+            for (int j = 0; j < oldDocs.length; j++) {
+                if (oldDocs[j] == -1) continue;
+                int i = slot(oldMsb[j], oldLsb[j], mask);
+                while (docs[i] != -1) {
+                    i = (i + 1) & mask;
+                }
+                msb[i] = oldMsb[j];
+                lsb[i] = oldLsb[j];
+                docs[i] = oldDocs[j];
+            }
+        }
+
+        private static int[] newDocs(int capacity) {
+            int[] docs = new int[capacity];
+            Arrays.fill(docs, -1);
+            return docs;
+        }
+
+        private static int slot(long hi, long lo, int mask) {
+            long h = (hi ^ lo) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    // 박싱 없는 long -> IntList 맵 (오픈 어드레싱, 선형 탐사)
+    // 빈 칸은 values[i] == null로 구분하므로 키 값에 제약이 없습니다.
+    // 키 삭제는 없고, 압축할 때 살아있는 목록만 새 맵으로 옮깁니다.
+    private static final class LongIntListMap {
+        long[] keys = new long[16];
+        IntList[] values = new IntList[16];
+        int size;
+
+        IntList get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            return null;
+        }
+
+        IntList getOrCreate(long key) {
+            IntList list = get(key);
+            if (list == null) {
+                list = new IntList();
+                insert(key, list);
+            }
+            return list;
+        }
+
+        // 없는 키라는 것이 확실할 때만 호출
+        void insert(long key, IntList list) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = list;
+            size++;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            IntList[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new IntList[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldValues.length; j++) {
+                if (oldValues[j] == null) continue;
+                int i = slot(oldKeys[j], mask);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
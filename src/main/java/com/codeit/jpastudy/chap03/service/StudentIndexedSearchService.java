@@ -0,0 +1,69 @@
+package com.codeit.jpastudy.chap03.service;
+
+import com.codeit.jpastudy.chap03.entity.Student;
+import com.codeit.jpastudy.chap03.repository.StudentRepository;
+import com.codeit.jpastudy.chap03.search.StudentNgramIndex;
+import com.codeit.jpastudy.chap03.search.StudentNgramIndex.Field;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * 메모리 n-gram 색인으로 부분 검색 (StudentRepository의 findBy...Containing 대체)
+ * 색인에서 후보 id를 찾고, DB에는 그 id들로만 엔터티를 채우러 갑니다. (PK 조회)
+ * 색인으로 답할 수 없는 짧은 검색어는 기존처럼 LIKE 쿼리를 실행합니다.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "study.student.ngram-index.enabled", havingValue = "true")
+@Transactional(readOnly = true)
+public class StudentIndexedSearchService {
+
+    // IN 절 하나에 넣을 id 개수
+    private static final int HYDRATE_CHUNK = 1000;
+
+    private final StudentNgramIndex index;
+    private final StudentRepository studentRepository;
+
+    public List<Student> findByNameContaining(String name) {
+        return search(Field.NAME, name, Student::getName, studentRepository::findByNameContaining);
+    }
+
+    public List<Student> findByCityContaining(String city) {
+        return search(Field.CITY, city, Student::getCity, studentRepository::findByCityContaining);
+    }
+
+    public List<Student> findByMajorContaining(String major) {
+        return search(Field.MAJOR, major, Student::getMajor, studentRepository::findByMajorContaining);
+    }
+
+    private List<Student> search(Field field, String term,
+                                 Function<Student, String> getter,
+                                 Function<String, List<Student>> fallback) {
+        Optional<List<UUID>> candidates = index.candidates(field, term);
+        if (candidates.isEmpty()) {
+            return fallback.apply(term);
+        }
+
+        List<UUID> ids = candidates.get();
+        List<Student> result = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += HYDRATE_CHUNK) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + HYDRATE_CHUNK, ids.size()));
+            for (Student student : studentRepository.findAllById(chunk)) {
+                // 트라이그램이 모두 있어도 연속으로 이어지지 않을 수 있어서 실제 포함 여부를 다시 확인 (LIKE와 동일한 결과)
+                String value = getter.apply(student);
+                if (value != null && value.contains(term)) {
+                    result.add(student);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,135 @@
+package com.codeit.jpastudy.chap03.service;
+
+import com.codeit.jpastudy.chap03.dto.StudentSummary;
+import com.codeit.jpastudy.chap03.entity.Student;
+import com.codeit.jpastudy.chap03.event.StudentChangedEvent;
+import com.codeit.jpastudy.chap03.event.StudentsDeletedEvent;
+import com.codeit.jpastudy.chap03.repository.StudentRepository;
+import com.codeit.jpastudy.common.cache.QueryResultCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * StudentRepository의 자주 호출되는 조회 메서드에 결과 캐시를 적용한 서비스
+ * 같은 조건의 조회는 DB에 가지 않고 캐시에서 돌려주고,
+ * 학생이 저장/수정/삭제되면 그 학생의 이름/도시/전공에 해당하는 캐시만 골라서 무효화합니다. (수정은 수정 전/후 값 모두)
+ * 캐시에는 엔터티 대신 불변 DTO(StudentSummary)를 보관합니다. (세션에 묶인 엔터티를 여러 요청이 공유하지 않도록)
+ */
+@Service
+@RequiredArgsConstructor
+public class StudentQueryService {
+
+    // 캐시 키
+    public record CityMajor(String city, String major) {
+    }
+
+    public record NameOrCity(String name, String city) {
+    }
+
+    private final StudentRepository studentRepository;
+    private final QueryResultCache<String, List<StudentSummary>> studentByNameCache;
+    private final QueryResultCache<CityMajor, List<StudentSummary>> studentByCityMajorCache;
+    private final QueryResultCache<NameOrCity, List<StudentSummary>> studentByNameOrCityCache;
+
+    @Transactional(readOnly = true)
+    public List<StudentSummary> findByName(String name) {
+        return studentByNameCache.get(name,
+                () -> toSummaries(studentRepository.findByName(name)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<StudentSummary> findByCityAndMajor(String city, String major) {
+        return studentByCityMajorCache.get(new CityMajor(city, major),
+                () -> toSummaries(studentRepository.findByCityAndMajor(city, major)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<StudentSummary> getStudentByNameOrCity(String name, String city) {
+        return studentByNameOrCityCache.get(new NameOrCity(name, city),
+                () -> toSummaries(studentRepository.getStudentByNameOrCity(name, city)));
+    }
+
+    // 삭제가 끝나면 StudentsDeletedEvent가 한 번 발행되므로 캐시는 onStudentsDeleted에서 무효화됩니다.
+    @Transactional
+    public int deleteByNameAndCity(String name, String city) {
+        return studentRepository.deleteByNameAndCityInBatches(name, city);
+    }
+
+    public Map<String, QueryResultCache.CacheStats> cacheStats() {
+        Map<String, QueryResultCache.CacheStats> stats = new LinkedHashMap<>();
+        stats.put("findByName", studentByNameCache.stats());
+        stats.put("findByCityAndMajor", studentByCityMajorCache.stats());
+        stats.put("getStudentByNameOrCity", studentByNameOrCityCache.stats());
+        return stats;
+    }
+
+    // 변경이 일어난 트랜잭션 안에서 바로 무효화하고 (같은 트랜잭션에서 다시 조회하는 경우)
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        evict(event);
+    }
+
+    // 트랜잭션이 끝나면 커밋이든 롤백이든 한 번 더 무효화합니다.
+    // - 커밋: 커밋 전에 다른 요청이 이전 값을 다시 캐시했을 수 있으므로
+    // - 롤백: 조회는 호출한 쪽의 트랜잭션에 참여하므로, 같은 트랜잭션에서 읽은 (롤백된 학생이 포함된) 결과가 캐시에 남지 않도록
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterStudentCompleted(StudentChangedEvent event) {
+        evict(event);
+    }
+
+    @EventListener
+    public void onStudentsDeleted(StudentsDeletedEvent event) {
+        evict(event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterStudentsDeleted(StudentsDeletedEvent event) {
+        evict(event);
+    }
+
+    // 벌크 삭제는 학생 수와 관계없이 캐시마다 한 번씩만 훑습니다.
+    private void evict(StudentsDeletedEvent event) {
+        event.names().forEach(studentByNameCache::evict);
+        studentByCityMajorCache.evictIf(key ->
+                event.cities().contains(key.city()) && event.majors().contains(key.major()));
+        studentByNameOrCityCache.evictIf(key ->
+                event.names().contains(key.name()) || event.cities().contains(key.city()));
+    }
+
+    private void evict(StudentChangedEvent event) {
+        Student student = event.student();
+        if (event.type() == StudentChangedEvent.ChangeType.UPDATE) {
+            Student.SearchKeys previous = event.previous();
+            // 수정 전 값을 모르면 (조회 없이 수정된 경우) 어떤 키가 바뀌었는지 알 수 없어서 전체를 비웁니다.
+            if (previous == null) {
+                studentByNameCache.clear();
+                studentByCityMajorCache.clear();
+                studentByNameOrCityCache.clear();
+                return;
+            }
+            // 이전 값으로 조회하던 결과에서는 빠져야 하므로 이전 키도 함께 무효화
+            evict(previous.name(), previous.city(), previous.major());
+        }
+        evict(student.getName(), student.getCity(), student.getMajor());
+    }
+
+    private void evict(String name, String city, String major) {
+        studentByNameCache.evict(name);
+        studentByCityMajorCache.evict(new CityMajor(city, major));
+        studentByNameOrCityCache.evictIf(key ->
+                Objects.equals(key.name(), name) || Objects.equals(key.city(), city));
+    }
+
+    private static List<StudentSummary> toSummaries(List<Student> students) {
+        return students.stream().map(StudentSummary::from).toList();
+    }
+}
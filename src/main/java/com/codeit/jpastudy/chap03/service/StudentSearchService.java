@@ -0,0 +1,90 @@
+package com.codeit.jpastudy.chap03.service;
+
+import com.codeit.jpastudy.chap03.entity.Student;
+import com.codeit.jpastudy.chap03.event.StudentChangedEvent;
+import com.codeit.jpastudy.chap03.event.StudentsDeletedEvent;
+import com.codeit.jpastudy.chap03.repository.StudentPageRepository;
+import com.codeit.jpastudy.common.cache.QueryResultCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Service
+@RequiredArgsConstructor
+public class StudentSearchService {
+
+    private final StudentPageRepository studentPageRepository;
+    private final QueryResultCache<String, Long> studentCountCache;
+
+    // 무한 스크롤용: COUNT 쿼리 없이 다음 페이지 존재 여부만 확인 (size + 1개를 조회)
+    @Transactional(readOnly = true)
+    public Slice<Student> searchByName(String name, Pageable pageable) {
+        return studentPageRepository.findSliceByNameContaining(name, pageable);
+    }
+
+    // 총 개수가 필요한 경우: 목록은 Slice로 가져오고, 총 개수는 캐시된 값을 사용합니다.
+    // 검색어에 해당하는 학생이 추가/삭제되기 전까지는 COUNT 쿼리가 다시 실행되지 않습니다.
+    @Transactional(readOnly = true)
+    public Page<Student> searchPageByName(String name, Pageable pageable) {
+        Slice<Student> slice = studentPageRepository.findSliceByNameContaining(name, pageable);
+
+        // 첫 페이지에서 다음 페이지가 없으면 총 개수는 현재 목록의 개수와 같아서 COUNT가 필요 없습니다.
+        if (pageable.isPaged() && pageable.getOffset() == 0 && !slice.hasNext()) {
+            return new PageImpl<>(slice.getContent(), pageable, slice.getNumberOfElements());
+        }
+
+        long total = studentCountCache.get(name, () -> studentPageRepository.countByNameContaining(name));
+        return new PageImpl<>(slice.getContent(), pageable, total);
+    }
+
+    public QueryResultCache.CacheStats countCacheStats() {
+        return studentCountCache.stats();
+    }
+
+    // 학생이 추가/수정/삭제되면 그 학생의 이름이 포함되는 검색어의 개수만 무효화
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        evict(event);
+    }
+
+    // 트랜잭션이 끝나면 커밋이든 롤백이든 한 번 더 무효화합니다.
+    // - 커밋: 커밋 전에 다른 요청이 이전 개수를 다시 캐시했을 수 있으므로
+    // - 롤백: 같은 트랜잭션 안에서 읽은 (롤백된 학생이 포함된) 개수가 캐시에 남지 않도록
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterStudentCompleted(StudentChangedEvent event) {
+        evict(event);
+    }
+
+    @EventListener
+    public void onStudentsDeleted(StudentsDeletedEvent event) {
+        evict(event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterStudentsDeleted(StudentsDeletedEvent event) {
+        evict(event);
+    }
+
+    // 삭제된 학생들의 이름(중복 제거) 중 하나라도 포함하는 검색어의 개수를 한 번에 무효화
+    private void evict(StudentsDeletedEvent event) {
+        studentCountCache.evictIf(term ->
+                event.names().stream().anyMatch(name -> name != null && name.contains(term)));
+    }
+
+    private void evict(StudentChangedEvent event) {
+        // 수정의 경우 변경 전 이름을 알 수 없어서 전체를 비웁니다. (이전 이름이 포함된 검색어의 개수도 바뀜)
+        String name = event.student().getName();
+        if (event.type() == StudentChangedEvent.ChangeType.UPDATE || name == null) {
+            studentCountCache.clear();
+            return;
+        }
+        studentCountCache.evictIf(name::contains);
+    }
+}
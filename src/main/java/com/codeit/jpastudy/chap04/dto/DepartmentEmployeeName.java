@@ -0,0 +1,6 @@
+package com.codeit.jpastudy.chap04.dto;
+
+// 부서 + 사원 이름 한 행 (조인 결과를 평평하게 펼친 조회 전용 DTO)
+// 사원이 없는 부서는 employeeName이 null 입니다.
+public record DepartmentEmployeeName(Long departmentId, String departmentName, String employeeName) {
+}
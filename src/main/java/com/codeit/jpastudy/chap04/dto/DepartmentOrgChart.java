@@ -0,0 +1,7 @@
+package com.codeit.jpastudy.chap04.dto;
+
+import java.util.List;
+
+// 조직도 화면용: 부서 이름, 사원 수, 사원 이름 목록
+public record DepartmentOrgChart(Long id, String name, int employeeCount, List<String> employeeNames) {
+}
@@ -0,0 +1,6 @@
+package com.codeit.jpastudy.chap04.dto;
+
+// 부서 이름과 사원 수만 담는 조회 전용 DTO (GROUP BY 집계 결과)
+// 엔터티가 아니기 때문에 영속성 컨텍스트에 들어가지 않고 스냅샷/더티 체킹 비용도 없습니다.
+public record DepartmentSummary(Long id, String name, Long employeeCount) {
+}
@@ -3,6 +3,7 @@ package com.codeit.jpastudy.chap04.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Getter
@@ -14,6 +15,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "tbl_dept")
+// 엔터티 그래프: 조회할 때 함께 가져올 연관 필드를 이름 붙여서 정의 (리포지토리에서 @EntityGraph로 사용)
+@NamedEntityGraph(name = "Department.withEmployees", attributeNodes = @NamedAttributeNode("employees"))
 public class Department {
 
     @Id
@@ -27,8 +30,21 @@ public class Department {
     // 양방향 맵핑에서는 실제 테이블에 list가 세팅되지 않습니다.
     // 엔터티 안에서만 사용하는 가상의 컬럼입니다.
     // 상대방 엔터티의 갱신에 관여할 수 없기 때문에 단순히 읽기 전용(조회)으로만 사용하는 것을 권장.
+    // 여러 부서의 사원 목록은 hibernate.default_batch_fetch_size 단위로 묶어서 조회됩니다. (application.yml)
     @OneToMany(mappedBy = "department", orphanRemoval = true, cascade = CascadeType.ALL) // 연관 관계 엔터티의 필드명을 작성
-    private List<Employee> employees;
+    @Builder.Default
+    private List<Employee> employees = new ArrayList<>();
+
+    // 부서에 사원 추가 (연관관계 편의 메서드에서 사용)
+    // 순서 컬럼이 없는 List는 하이버네이트에서 bag으로 관리되는데, 아직 로딩되지 않은 bag에 add만 하면
+    // 사원 목록 전체를 SELECT 하지 않고 추가 작업만 대기열에 넣어 둡니다. (나중에 목록을 읽을 때 합쳐짐)
+    // 반대로 contains, remove, Set.add 등은 중복/존재 여부를 확인해야 해서 목록 전체를 읽어옵니다.
+    public void addEmployee(Employee employee) {
+        if (employees == null) {
+            employees = new ArrayList<>();
+        }
+        employees.add(employee);
+    }
 
     /*
         # CascadeType.PERSIST
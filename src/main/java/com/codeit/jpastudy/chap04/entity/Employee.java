@@ -2,6 +2,8 @@ package com.codeit.jpastudy.chap04.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 @Getter @Setter
 @ToString(exclude = "department")
@@ -11,6 +13,7 @@ import lombok.*;
 
 @Entity
 @Table(name = "tbl_emp")
+@NamedEntityGraph(name = "Employee.withDepartment", attributeNodes = @NamedAttributeNode("department"))
 public class Employee {
 
     @Id
@@ -25,15 +28,23 @@ public class Employee {
     // LAZY: 필요한 경우에만 데이터를 가져온다. -> 실무
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "dept_id") // FK 컬럼명 (연관 테이블의 컬럼명과 일치하게)
+    @OnDelete(action = OnDeleteAction.CASCADE) // FK에 ON DELETE CASCADE 추가 (부서 행이 지워지면 DB가 사원도 삭제)
     private Department department;
 
 
     // 연관관계 편의 메서드 (양방향에서 연관된 필드가 수정된 경우
     // 실제 테이블과의 데이터를 맞춰 주기 위한 메서드)
     public void changeDepartment(Department department) {
+        // 이전 부서의 사원 리스트에서는 빼지 않습니다.
+        // Department.employees는 orphanRemoval = true라서, 로딩된 목록에서 빼면 하이버네이트가 고아로 보고
+        // flush 시점에 사원 행을 DELETE 합니다. (부서 이동이 사원 삭제가 됨)
+        // 이전 부서의 목록에는 이 트랜잭션이 끝날 때까지 이동한 사원이 남아 보일 수 있습니다. (DB에는 영향 없음)
         this.department = department;
         // 사원의 부서가 변경돼? -> 부서쪽 사원 리스트에도 이 객체를 추가해 주자.
-        department.getEmployees().add(this);
+        // 대상 부서의 사원 목록을 로딩하지 않고 추가만 합니다. (사원이 5만 명이어도 SELECT 없음)
+        if (department != null) {
+            department.addEmployee(this);
+        }
     }
 
 
@@ -1,10 +1,28 @@
 package com.codeit.jpastudy.chap04.repository;
 
+import com.codeit.jpastudy.chap04.dto.DepartmentEmployeeName;
+import com.codeit.jpastudy.chap04.dto.DepartmentOrgChart;
+import com.codeit.jpastudy.chap04.dto.DepartmentSummary;
 import com.codeit.jpastudy.chap04.entity.Department;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public interface DepartmentRepository extends JpaRepository<Department, Long> {
 
@@ -14,4 +32,83 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
     @Query("SELECT d FROM Department d JOIN FETCH d.employees")
     List<Department> findAllIncludeEmployees();
 
+    // 컬렉션 FETCH JOIN은 부서 행이 사원 수만큼 늘어나기 때문에 SQL로 페이징할 수 없습니다.
+    // (Pageable을 주면 하이버네이트가 전체를 메모리로 읽은 뒤 잘라냅니다 -> 경고 로그 + 메모리 폭발)
+    // 그래서 1단계로 부서 id만 페이징하고, 2단계로 그 id들에 대해서만 FETCH JOIN을 실행합니다.
+    @Query(value = "SELECT d.id FROM Department d", countQuery = "SELECT COUNT(d) FROM Department d")
+    Page<Long> findIdPage(Pageable pageable);
+
+    @Query("SELECT DISTINCT d FROM Department d LEFT JOIN FETCH d.employees WHERE d.id IN :ids")
+    List<Department> findAllIncludeEmployeesByIdIn(@Param("ids") Collection<Long> ids);
+
+    default Page<Department> findPageIncludeEmployees(Pageable pageable) {
+        Page<Long> idPage = findIdPage(pageable);
+        if (idPage.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, idPage.getTotalElements());
+        }
+
+        // IN 절 결과는 순서가 보장되지 않으므로 1단계의 id 순서(정렬 조건)대로 다시 맞춥니다.
+        Map<Long, Department> byId = findAllIncludeEmployeesByIdIn(idPage.getContent()).stream()
+                .collect(Collectors.toMap(Department::getId, Function.identity()));
+        return idPage.map(byId::get);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////
+
+    // 엔터티 그래프로 가져올 연관 데이터를 호출하는 쪽에서 고르기
+    // 사원이 필요 없으면 기본 findAll (지연 로딩), 필요하면 아래 메서드로 한 번에 가져옵니다.
+    @EntityGraph("Department.withEmployees")
+    List<Department> findWithEmployeesBy();
+
+    @EntityGraph("Department.withEmployees")
+    Optional<Department> findWithEmployeesById(Long id);
+
+    // 연관 필드 이름을 그때그때 넘겨서 함께 조회 (동적 페치 플랜)
+    // 예) findAllFetching("employees")
+    default List<Department> findAllFetching(String... attributePaths) {
+        return findBy(Example.of(new Department()), query -> query.project(attributePaths).all());
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////
+
+    // 조회 전용 DTO 프로젝션 (화면에 필요한 컬럼만 SELECT, 엔터티를 만들지 않음)
+    // 부서별 사원 수는 사원 엔터티를 전부 읽어서 세지 않고 DB에서 GROUP BY로 집계합니다.
+    @Query("""
+            SELECT new com.codeit.jpastudy.chap04.dto.DepartmentSummary(d.id, d.name, COUNT(e))
+            FROM Department d LEFT JOIN d.employees e
+            GROUP BY d.id, d.name
+            ORDER BY d.id
+            """)
+    List<DepartmentSummary> findAllSummaries();
+
+    // 부서 이름 + 사원 이름을 한 행씩 평평하게 조회
+    @Query("""
+            SELECT new com.codeit.jpastudy.chap04.dto.DepartmentEmployeeName(d.id, d.name, e.name)
+            FROM Department d LEFT JOIN d.employees e
+            ORDER BY d.id, e.id
+            """)
+    List<DepartmentEmployeeName> findAllEmployeeNames();
+
+    // 평평한 행들을 부서 단위로 묶어서 조직도 형태로 변환 (쿼리 1번)
+    default List<DepartmentOrgChart> findOrgChart() {
+        Map<Long, List<DepartmentEmployeeName>> rowsByDept = new LinkedHashMap<>();
+        for (DepartmentEmployeeName row : findAllEmployeeNames()) {
+            rowsByDept.computeIfAbsent(row.departmentId(), id -> new ArrayList<>()).add(row);
+        }
+
+        List<DepartmentOrgChart> charts = new ArrayList<>(rowsByDept.size());
+        rowsByDept.forEach((id, rows) -> {
+            List<String> names = rows.stream()
+                    .map(DepartmentEmployeeName::employeeName)
+                    .filter(Objects::nonNull)
+                    .toList();
+            charts.add(new DepartmentOrgChart(id, rows.get(0).departmentName(), names.size(), names));
+        });
+        return charts;
+    }
+
+    @Modifying
+    @Query("DELETE FROM Department d WHERE d.id = :id")
+    int deleteByIdInBulk(@Param("id") Long id);
+
 }
@@ -1,7 +1,33 @@
 package com.codeit.jpastudy.chap04.repository;
 
 import com.codeit.jpastudy.chap04.entity.Employee;
+import org.springframework.data.domain.Example;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+
+    // 사원 + 부서를 조인해서 한 번에 조회 (부서 이름을 함께 보여줘야 하는 화면용)
+    @EntityGraph("Employee.withDepartment")
+    List<Employee> findWithDepartmentBy();
+
+    @EntityGraph("Employee.withDepartment")
+    Optional<Employee> findWithDepartmentById(Long id);
+
+    // 연관 필드 이름을 그때그때 넘겨서 함께 조회 (동적 페치 플랜)
+    // 예) findAllFetching("department")
+    default List<Employee> findAllFetching(String... attributePaths) {
+        return findBy(Example.of(new Employee()), query -> query.project(attributePaths).all());
+    }
+
+    // 부서의 사원을 DELETE 한 번으로 삭제 (영속성 컨텍스트 정리는 DepartmentService에서)
+    @Modifying
+    @Query("DELETE FROM Employee e WHERE e.department.id = :deptId")
+    int deleteAllByDepartmentIdInBulk(@Param("deptId") Long departmentId);
 }
@@ -0,0 +1,72 @@
+package com.codeit.jpastudy.chap04.service;
+
+import com.codeit.jpastudy.chap04.entity.Department;
+import com.codeit.jpastudy.chap04.entity.Employee;
+import com.codeit.jpastudy.chap04.repository.DepartmentRepository;
+import com.codeit.jpastudy.chap04.repository.EmployeeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class DepartmentService {
+
+    private final DepartmentRepository departmentRepository;
+    private final EmployeeRepository employeeRepository;
+    private final EntityManager em;
+
+    /**
+     * 부서와 소속 사원을 벌크 DELETE로 삭제
+     * departmentRepository.delete(부서)는 cascade/orphanRemoval 때문에 사원 전체를 조회한 뒤
+     * 한 명씩 DELETE를 실행합니다. (사원 10만 명 -> SELECT 10만 행 + DELETE 10만 번)
+     * 여기서는 DELETE 두 번으로 끝내고, 영속성 컨텍스트에 남아있던 해당 부서/사원만 골라서 분리합니다.
+     * @return 삭제된 사원 수
+     */
+    @Transactional
+    public int deleteWithEmployees(Long departmentId) {
+        // 대기 중인 변경사항을 먼저 반영해야 벌크 DELETE 결과와 어긋나지 않습니다.
+        em.flush();
+        detachDepartment(departmentId);
+
+        int deleted = employeeRepository.deleteAllByDepartmentIdInBulk(departmentId);
+        departmentRepository.deleteByIdInBulk(departmentId);
+        return deleted;
+    }
+
+    // 삭제될 부서와 그 부서 소속 사원만 영속성 컨텍스트에서 분리 (나머지 엔터티는 그대로 유지)
+    // 세션 통계(공개 API)로 지금 관리 중인 엔터티 키만 훑습니다. (사원 목록을 로딩하거나 DB를 조회하지 않음)
+    // 부서 목록을 거치지 않고 따로 조회한 사원도 함께 분리되므로, 삭제 후 em.find가 지워진 사원을 돌려주지 않습니다.
+    private void detachDepartment(Long departmentId) {
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<Object> employeeIds = new ArrayList<>();
+        boolean departmentManaged = false;
+        for (EntityKey key : em.unwrap(Session.class).getStatistics().getEntityKeys()) {
+            if (Employee.class.getName().equals(key.getEntityName())) {
+                employeeIds.add(key.getIdentifier());
+            } else if (Department.class.getName().equals(key.getEntityName()) && departmentId.equals(key.getIdentifier())) {
+                departmentManaged = true;
+            }
+        }
+
+        // 관리 중인 id만 골랐으므로 getReference는 그 엔터티 객체를 그대로 돌려줍니다. (프록시를 새로 만들지 않음)
+        for (Object id : employeeIds) {
+            Employee employee = em.getReference(Employee.class, id);
+            // 사원의 부서가 프록시여도 getIdentifier는 프록시를 초기화하지 않습니다.
+            if (employee.getDepartment() != null
+                    && departmentId.equals(util.getIdentifier(employee.getDepartment()))) {
+                em.detach(employee);
+            }
+        }
+        if (departmentManaged) {
+            em.detach(em.getReference(Department.class, departmentId));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.codeit.jpastudy.chap05.config;
+
+import com.codeit.jpastudy.chap05.service.StripedBalanceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * 분할 잔액을 주기적으로 본 계좌에 합산하는 작업
+ * 분할 행에 쌓인 입금을 본 계좌로 옮겨 두면 출금할 때 합산할 일이 줄어듭니다.
+ * 계좌마다 별도의 트랜잭션으로 처리해서 한 계좌의 실패가 다른 계좌에 영향을 주지 않습니다.
+ */
+@Slf4j
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "study.account.striping.consolidation.enabled", havingValue = "true")
+public class StripedBalanceConsolidationConfig {
+
+    private final StripedBalanceService stripedBalanceService;
+
+    @Scheduled(
+            initialDelayString = "${study.account.striping.consolidation.interval}",
+            fixedDelayString = "${study.account.striping.consolidation.interval}"
+    )
+    public void consolidateAll() {
+        for (Long accountId : stripedBalanceService.findStripedAccountIds()) {
+            try {
+                stripedBalanceService.consolidate(accountId);
+            } catch (RuntimeException e) {
+                // 다음 주기에 다시 시도되므로 이 계좌만 건너뛰고 계속 진행
+                log.warn("분할 잔액 합산에 실패했습니다. accountId: {}", accountId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.codeit.jpastudy.chap05.config;
+
+import com.codeit.jpastudy.chap05.journal.TransferJournalWriter;
+import com.codeit.jpastudy.chap05.repository.TransferJdbcRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class TransferJournalConfig {
+
+    @Bean
+    public TransferJournalWriter transferJournalWriter(
+            TransferJdbcRepository transferJdbcRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${study.account.journal.capacity:10000}") int capacity,
+            @Value("${study.account.journal.batch-size:500}") int batchSize,
+            @Value("${study.account.journal.durability:FLUSH_BEFORE_ACK}") TransferJournalWriter.Durability durability,
+            @Value("${study.account.journal.ack-timeout:5s}") Duration ackTimeout,
+            @Value("${study.account.journal.shutdown-timeout:30s}") Duration shutdownTimeout,
+            @Value("${study.account.journal.max-attempts:3}") int maxAttempts,
+            ObjectProvider<TransferJournalWriter.FailureHandler> failureHandler) {
+        // 실패 처리기 빈이 없으면 기록하지 못한 내역을 에러 로그로 남깁니다.
+        return new TransferJournalWriter(transferJdbcRepository, transactionTemplate,
+                capacity, batchSize, durability, ackTimeout, shutdownTimeout, maxAttempts,
+                failureHandler.getIfAvailable(() -> TransferJournalWriter.LOG_FAILURES));
+    }
+}
@@ -0,0 +1,10 @@
+package com.codeit.jpastudy.chap05.dto;
+
+import java.util.List;
+
+// 일괄 이체 결과: 성공 건수 + 실패한 요청 목록 (입력 목록에서의 위치와 사유)
+public record TransferBatchResult(int succeeded, List<Failure> failures) {
+
+    public record Failure(int index, TransferCommand command, String reason) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.codeit.jpastudy.chap05.dto;
+
+import java.math.BigDecimal;
+
+// 이체 요청 한 건 (일괄 이체 입력)
+public record TransferCommand(Long fromId, Long toId, BigDecimal amount) {
+}
@@ -0,0 +1,8 @@
+package com.codeit.jpastudy.chap05.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// transfers 테이블에 INSERT 할 한 행 (JDBC 대량 기록용)
+public record TransferRecord(Long fromId, Long toId, BigDecimal amount, LocalDateTime transferredAt) {
+}
@@ -2,6 +2,7 @@ package com.codeit.jpastudy.chap05.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
@@ -25,6 +26,13 @@ public class Account {
     @Column(nullable = false, precision = 19, scale = 0)
     private BigDecimal balance = BigDecimal.ZERO; // Long보다 더 큰 정수를 표현하고 싶을 때.
 
+    // 낙관적 락용 버전 (UPDATE ... WHERE id = ? AND version = ? 로 수정되고, 수정된 행이 없으면 예외)
+    // 기존 행이 있는 테이블에 컬럼이 추가돼도 0으로 채워지도록 기본값을 줍니다.
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public Account(String accountNumber, String ownerName, BigDecimal balance) {
         this.accountNumber = accountNumber;
         this.ownerName = ownerName;
@@ -0,0 +1,42 @@
+package com.codeit.jpastudy.chap05.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * 입금이 몰리는 계좌(hot account)의 분할 잔액 행
+ * 계좌 하나의 잔액 = accounts.balance + 이 테이블에서 해당 계좌 행들의 balance 합계
+ * 입금을 N개의 행에 나눠서 반영하면 같은 행의 잠금을 기다리는 트랜잭션이 1/N로 줄어듭니다.
+ */
+@Getter @Setter
+@ToString(exclude = "account")
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+        name = "account_balance_stripes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stripe_account_no", columnNames = {"account_id", "stripe_no"})
+)
+public class AccountBalanceStripe {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(name = "stripe_no", nullable = false)
+    private int stripeNo;
+
+    @Column(nullable = false, precision = 19, scale = 0)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    public AccountBalanceStripe(Account account, int stripeNo) {
+        this.account = account;
+        this.stripeNo = stripeNo;
+    }
+}
@@ -0,0 +1,339 @@
+package com.codeit.jpastudy.chap05.journal;
+
+import com.codeit.jpastudy.chap05.dto.TransferRecord;
+import com.codeit.jpastudy.chap05.repository.TransferJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 이체 내역 비동기 기록기
+ * TransferService.recordTransferWithNew(REQUIRES_NEW)는 이체 한 건마다 새 트랜잭션을 열기 때문에
+ * 바깥 트랜잭션의 커넥션을 쥔 채로 커넥션을 하나 더 빌립니다. (동시 이체 N건 = 커넥션 2N개 -> 풀 고갈)
+ *
+ * 여기서는 기록할 내역을 크기가 정해진 대기열에 넣고, 백그라운드 스레드 하나가 모아서 JDBC 배치로 INSERT 합니다.
+ * - 기록용 커넥션은 동시 이체 수와 상관없이 최대 1개
+ * - 여러 이체의 내역이 한 번의 커밋으로 묶임 (커밋/fsync 횟수 감소)
+ * - 대기열이 가득 차면 append가 자리가 날 때까지 대기 (기록이 밀리면 이체 쪽 속도도 함께 조절됨)
+ *
+ * 기록 보장 수준 (Durability)
+ * - FLUSH_BEFORE_ACK: 내역이 DB에 커밋된 뒤 리턴 (기존 REQUIRES_NEW와 같은 보장)
+ *   호출한 쪽은 트랜잭션 안에서 기다리므로, 그동안 이체에서 잠근 두 계좌 행의 잠금도 계속 쥐고 있습니다.
+ *   (기록이 밀리면 같은 계좌를 쓰는 이체가 최대 ackTimeout만큼 더 기다림)
+ *   ackTimeout 안에 끝나지 않거나 인터럽트되면 내역을 취소하고 예외를 던집니다. 취소된 내역은 기록하지 않으므로
+ *   바깥 트랜잭션이 롤백돼도 내역만 남지 않습니다. 다만 기록이 끝난 뒤(리턴 후) 바깥 트랜잭션이 롤백되면 내역은 남습니다.
+ * - FIRE_AND_FORGET: 바깥 트랜잭션이 커밋된 뒤(afterCommit) 대기열에 넣습니다. 롤백된 이체의 내역은 남지 않습니다.
+ *   가장 빠르지만 프로세스가 죽으면 대기열의 내역은 유실되고, 트랜잭션 밖에서 호출하면 바로 대기열에 넣습니다.
+ *
+ * 실패와 종료
+ * - INSERT가 실패하면 같은 배치를 maxAttempts번까지 다시 시도하고, 그래도 안 되면 FailureHandler로 넘깁니다.
+ * - 종료(stop) 시에는 새 내역을 받지 않고, 대기열에 남은 내역을 shutdownTimeout까지 기다려서 모두 기록합니다.
+ *   시간 안에 기록하지 못한 내역도 버리지 않고 FailureHandler로 넘긴 뒤 기다리던 호출에 실패를 알립니다.
+ */
+@Slf4j
+public class TransferJournalWriter implements SmartLifecycle {
+
+    public enum Durability {
+        FLUSH_BEFORE_ACK, FIRE_AND_FORGET
+    }
+
+    /**
+     * @param enqueued 대기열에 들어온 건수
+     * @param written  DB에 기록된 건수
+     * @param failed   기록에 실패한 건수
+     * @param batches  INSERT 배치(=커밋) 횟수
+     * @param queued   현재 대기 중인 건수
+     */
+    public record Stats(long enqueued, long written, long failed, long batches, int queued) {
+    }
+
+    /**
+     * 재시도해도 기록하지 못한 내역을 넘겨받는 곳 (파일이나 다른 저장소에 보관해 두었다가 다시 넣는 등)
+     * 기록 스레드와 종료 스레드에서 호출될 수 있으므로 스레드 안전해야 합니다.
+     */
+    @FunctionalInterface
+    public interface FailureHandler {
+        void onFailure(List<TransferRecord> records, Throwable cause);
+    }
+
+    // 기본 실패 처리: 내역을 한 건씩 에러 로그로 남겨서 나중에 복구할 수 있게 합니다.
+    public static final FailureHandler LOG_FAILURES = (records, cause) -> {
+        log.error("이체 내역 {}건을 기록하지 못했습니다.", records.size(), cause);
+        records.forEach(record -> log.error("기록하지 못한 이체 내역: {}", record));
+    };
+
+    // claimed: 기록 스레드가 가져갔거나 기다리던 호출이 취소한 내역 (둘 중 먼저 표시한 쪽만 이김)
+    private record Entry(TransferRecord record, CompletableFuture<Void> written, AtomicBoolean claimed) {
+
+        Entry(TransferRecord record) {
+            this(record, new CompletableFuture<>(), new AtomicBoolean());
+        }
+
+        // 기록 스레드가 INSERT 전에 호출. 이미 취소된 내역이면 false
+        boolean claimForWrite() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        // 기다리던 호출이 포기할 때 호출. 기록 스레드가 먼저 가져갔으면 false (기록 결과를 기다려야 함)
+        boolean cancel() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            return written.cancel(false);
+        }
+    }
+
+    // 대기열이 비어 있을 때 종료 여부를 확인하는 간격
+    private static final long POLL_MILLIS = 100;
+
+    // 재시도 대기 시간 (시도할 때마다 2배)
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+
+    private final TransferJdbcRepository transferJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final Durability defaultDurability;
+    private final Duration ackTimeout;
+    private final Duration shutdownTimeout;
+    private final int maxAttempts;
+    private final FailureHandler failureHandler;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    // running 확인 + 대기열 넣기(읽기 락)와 종료(쓰기 락)가 겹치지 않게 합니다.
+    // 쓰기 락을 잡은 뒤에는 대기열에 들어가는 중인 내역이 없으므로, 종료 후 남은 내역은 모두 대기열 안에 있습니다.
+    private final ReentrantReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread worker;
+
+    public TransferJournalWriter(TransferJdbcRepository transferJdbcRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 int capacity, int batchSize,
+                                 Durability defaultDurability, Duration ackTimeout,
+                                 Duration shutdownTimeout, int maxAttempts,
+                                 FailureHandler failureHandler) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("최대 시도 횟수는 1 이상이어야 합니다.");
+        }
+        this.transferJdbcRepository = transferJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.defaultDurability = defaultDurability;
+        this.ackTimeout = ackTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        this.maxAttempts = maxAttempts;
+        this.failureHandler = failureHandler;
+    }
+
+    public void append(Long fromId, Long toId, BigDecimal amount) {
+        append(fromId, toId, amount, defaultDurability);
+    }
+
+    public void append(Long fromId, Long toId, BigDecimal amount, Durability durability) {
+        Entry entry = new Entry(new TransferRecord(fromId, toId, amount, LocalDateTime.now()));
+        if (durability == Durability.FIRE_AND_FORGET && TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueueAfterCommit(entry);
+            return;
+        }
+
+        try {
+            enqueue(entry);
+            // 기록을 기다리는 동안에는 락을 쥐지 않습니다.
+            if (durability == Durability.FLUSH_BEFORE_ACK) {
+                entry.written().get(ackTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            awaitUnlessCancelled(entry, new IllegalStateException("이체 내역 기록 대기 중 인터럽트되었습니다.", e));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("이체 내역 기록에 실패했습니다.", e.getCause());
+        } catch (TimeoutException e) {
+            awaitUnlessCancelled(entry, new IllegalStateException(
+                    "이체 내역 기록이 " + ackTimeout.toMillis() + "ms 안에 끝나지 않았습니다.", e));
+        }
+    }
+
+    private void enqueue(Entry entry) throws InterruptedException {
+        // 대기열이 가득 차서 기다리는 동안에도 읽기 락을 쥐고 있으므로 stop은 이 내역이 들어간 뒤에 진행됩니다.
+        lifecycleLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("이체 내역 기록기가 실행 중이 아닙니다.");
+            }
+            queue.put(entry);
+            enqueued.increment();
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+    }
+
+    // 커밋된 뒤에는 호출한 쪽에 예외를 던져도 되돌릴 수 없으므로, 넣지 못한 내역은 FailureHandler로 넘깁니다.
+    private void enqueueAfterCommit(Entry entry) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    enqueue(entry);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fail(List.of(entry), e);
+                } catch (IllegalStateException e) {
+                    fail(List.of(entry), e);
+                }
+            }
+        });
+    }
+
+    // 아직 기록 스레드가 가져가지 않았으면 취소하고 예외를 던집니다. (취소된 내역은 나중에 기록되지 않음)
+    // 이미 가져갔다면 INSERT가 진행 중이므로 결과를 끝까지 기다립니다. (재시도 횟수와 종료 대기 시간으로 제한됨)
+    private void awaitUnlessCancelled(Entry entry, IllegalStateException cancelled) {
+        if (entry.cancel()) {
+            throw cancelled;
+        }
+        try {
+            entry.written().join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("이체 내역 기록에 실패했습니다.", e.getCause());
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(enqueued.sum(), written.sum(), failed.sum(), batches.sum(), queue.size());
+    }
+
+    // 대기열에서 꺼낼 수 있는 만큼(최대 batchSize) 모아서 한 번에 기록
+    // 종료 요청 후에도 대기열에 남은 내역은 모두 기록하고 끝납니다.
+    private void runWorker() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                // 종료는 running 플래그로 판단하므로 남은 내역을 계속 처리합니다.
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // 일시적인 오류(커넥션 끊김, 잠금 타임아웃 등)일 수 있으므로 같은 배치를 간격을 늘려가며 다시 시도합니다.
+    private void write(List<Entry> batch) {
+        // 기다리던 호출이 이미 취소한 내역은 건너뜁니다. (가져간 뒤에는 취소되지 않음)
+        List<Entry> entries = batch.stream().filter(Entry::claimForWrite).toList();
+        if (entries.isEmpty()) return;
+
+        List<TransferRecord> records = entries.stream().map(Entry::record).toList();
+        RuntimeException lastError = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> transferJdbcRepository.insertRecords(records));
+                batches.increment();
+                written.add(records.size());
+                entries.forEach(entry -> entry.written().complete(null));
+                return;
+            } catch (RuntimeException e) {
+                lastError = e;
+                log.warn("이체 내역 기록 실패 ({}/{}): {}", attempt, maxAttempts, e.getMessage());
+                if (attempt < maxAttempts && !sleepBeforeRetry(attempt)) {
+                    break;
+                }
+            }
+        }
+        fail(entries, lastError);
+    }
+
+    // 종료 시간이 지나서 인터럽트되면 더 기다리지 않고 false
+    private boolean sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(RETRY_BACKOFF_MILLIS << (attempt - 1));
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    // 기록하지 못한 내역은 FailureHandler로 넘기고, 기다리는 호출에는 실패를 알립니다.
+    private void fail(List<Entry> entries, Throwable cause) {
+        failed.add(entries.size());
+        try {
+            failureHandler.onFailure(entries.stream().map(Entry::record).toList(), cause);
+        } catch (RuntimeException e) {
+            log.error("이체 내역 실패 처리 중 오류가 발생했습니다.", e);
+        }
+        entries.forEach(entry -> entry.written().completeExceptionally(cause));
+    }
+
+    @Override
+    public void start() {
+        lifecycleLock.writeLock().lock();
+        try {
+            if (running) return;
+            running = true;
+            worker = new Thread(this::runWorker, "transfer-journal-writer");
+            worker.setDaemon(true);
+            worker.start();
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+    }
+
+    // 커넥션 풀보다 먼저 멈추도록 SmartLifecycle의 기본 단계(가장 늦게 시작, 가장 먼저 종료)를 사용합니다.
+    // 기록 스레드는 데몬이라 JVM 종료를 막지 않으므로, 남은 내역은 여기서 끝까지 기다려서 처리합니다.
+    @Override
+    public void stop() {
+        Thread stopping;
+        lifecycleLock.writeLock().lock();
+        try {
+            if (!running) return;
+            running = false;
+            stopping = worker;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+
+        // 여기부터는 새 내역이 들어오지 않습니다. 기록 스레드가 대기열을 비울 때까지 기다림
+        try {
+            stopping.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (stopping.isAlive()) {
+            // 재시도 대기 중이라면 깨워서 지금 배치를 실패 처리하게 합니다.
+            stopping.interrupt();
+        }
+
+        List<Entry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.removeIf(entry -> !entry.claimForWrite());
+        if (!remaining.isEmpty()) {
+            fail(remaining, new IllegalStateException(
+                    "종료 대기 시간(" + shutdownTimeout.toMillis() + "ms) 안에 기록하지 못했습니다."));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,44 @@
+package com.codeit.jpastudy.chap05.repository;
+
+import com.codeit.jpastudy.chap05.entity.AccountBalanceStripe;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+public interface AccountBalanceStripeRepository extends JpaRepository<AccountBalanceStripe, Long> {
+
+    long countByAccountId(Long accountId);
+
+    @Query("SELECT DISTINCT s.account.id FROM AccountBalanceStripe s")
+    List<Long> findStripedAccountIds();
+
+    // 분할 행 하나에만 입금 (같은 계좌라도 다른 분할 행에 입금하는 트랜잭션과는 서로 기다리지 않음)
+    // 영속성 컨텍스트 전체를 비우지 않으므로, 관리 중인 분할 행은 호출한 쪽에서 골라서 분리해야 합니다.
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE AccountBalanceStripe s SET s.balance = s.balance + :amount
+            WHERE s.account.id = :accountId AND s.stripeNo = :stripeNo
+            """)
+    int depositToStripe(@Param("accountId") Long accountId,
+                        @Param("stripeNo") int stripeNo,
+                        @Param("amount") BigDecimal amount);
+
+    // 합산 작업용 (분할 행을 모두 잠가서 그동안 들어오는 입금을 대기시킴)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceStripe s WHERE s.account.id = :accountId ORDER BY s.stripeNo")
+    List<AccountBalanceStripe> findAllByAccountIdForUpdate(@Param("accountId") Long accountId);
+
+    // 본 계좌 잔액 + 분할 잔액 합계를 한 문장으로 조회 (같은 시점의 스냅샷)
+    @Query("""
+            SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM AccountBalanceStripe s WHERE s.account.id = a.id), 0)
+            FROM Account a WHERE a.id = :accountId
+            """)
+    Optional<BigDecimal> findTotalBalance(@Param("accountId") Long accountId);
+}
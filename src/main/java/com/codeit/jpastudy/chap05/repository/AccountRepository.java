@@ -1,11 +1,40 @@
 package com.codeit.jpastudy.chap05.repository;
 
 import com.codeit.jpastudy.chap05.entity.Account;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByAccountNumber(String accountNumber);
+
+    // SELECT ... FOR UPDATE (행 잠금, 트랜잭션이 끝날 때까지 다른 트랜잭션의 수정/잠금을 대기시킴)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    // 여러 계좌를 한 번에 잠금 (정렬 후 잠그므로 id 오름차순으로 잠김 -> 다른 이체와 잠금 순서가 같음)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    // 잔액 확인과 차감을 UPDATE 한 문장으로 (읽고-계산하고-쓰는 사이에 끼어들 틈이 없음)
+    // 잔액이 부족하거나 계좌가 없으면 0을 리턴합니다.
+    // 낙관적 락으로 읽어 둔 쪽이 이 변경을 덮어쓰지 않도록 버전도 함께 올립니다.
+    // 영속성 컨텍스트 전체를 비우지 않으므로, 같은 트랜잭션에서 이 계좌 엔터티를 들고 있다면 호출한 쪽에서 그 계좌만 refresh/detach 해야 합니다.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.version = a.version + 1 WHERE a.id = :id AND a.balance >= :amount")
+    int withdrawIfSufficient(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.version = a.version + 1 WHERE a.id = :id")
+    int depositAtomically(@Param("id") Long id, @Param("amount") BigDecimal amount);
 }
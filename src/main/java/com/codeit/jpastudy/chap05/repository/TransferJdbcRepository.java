@@ -0,0 +1,47 @@
+package com.codeit.jpastudy.chap05.repository;
+
+import com.codeit.jpastudy.chap05.dto.TransferCommand;
+import com.codeit.jpastudy.chap05.dto.TransferRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * 이체 내역 대량 INSERT (JDBC 배치)
+ * Transfer 엔터티는 IDENTITY 전략이라 하이버네이트가 INSERT를 배치로 묶지 못합니다. (저장할 때마다 id를 받아와야 함)
+ * 생성된 id가 필요 없는 대량 기록은 JdbcTemplate으로 직접 묶어서 보냅니다.
+ * 스프링 트랜잭션 안에서 호출하면 JPA와 같은 커넥션/트랜잭션을 사용합니다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransferJdbcRepository {
+
+    // 한 번의 executeBatch로 전송할 INSERT 개수 (reWriteBatchedInserts로 multi-row INSERT로 재작성됨)
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL
+            = "INSERT INTO transfers (from_account_id, to_account_id, amount, transferred_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // 같은 시각에 처리된 이체 요청들 (일괄 이체)
+    public void insertAll(Collection<TransferCommand> transfers, LocalDateTime transferredAt) {
+        insertRecords(transfers.stream()
+                .map(t -> new TransferRecord(t.fromId(), t.toId(), t.amount(), transferredAt))
+                .toList());
+    }
+
+    public void insertRecords(Collection<TransferRecord> records) {
+        if (records.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, records, BATCH_SIZE, (ps, record) -> {
+            ps.setLong(1, record.fromId());
+            ps.setLong(2, record.toId());
+            ps.setBigDecimal(3, record.amount());
+            ps.setObject(4, record.transferredAt());
+        });
+    }
+}
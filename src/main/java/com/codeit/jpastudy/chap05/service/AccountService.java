@@ -1,14 +1,24 @@
 package com.codeit.jpastudy.chap05.service;
 
+import com.codeit.jpastudy.chap05.dto.TransferBatchResult;
+import com.codeit.jpastudy.chap05.dto.TransferCommand;
 import com.codeit.jpastudy.chap05.entity.Account;
+import com.codeit.jpastudy.chap05.entity.Transfer;
+import com.codeit.jpastudy.chap05.journal.TransferJournalWriter;
 import com.codeit.jpastudy.chap05.repository.AccountRepository;
+import com.codeit.jpastudy.chap05.repository.TransferJdbcRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.security.auth.login.AccountNotFoundException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @RequiredArgsConstructor
@@ -17,6 +27,10 @@ public class AccountService {
 
     private final AccountRepository accountRepository;
     private final TransferService transferService;
+    private final TransactionTemplate transactionTemplate;
+    private final StripedBalanceService stripedBalanceService;
+    private final TransferJdbcRepository transferJdbcRepository;
+    private final TransferJournalWriter transferJournalWriter;
 
     /**
      * 트랜잭션 없이 이체 (문제 상황 체험용)
@@ -127,6 +141,283 @@ public class AccountService {
 
     }
 
+    //////////////////////////////////////////////////////////////////////////////////////
+
+    /*
+        # 동시 이체 문제
+        위의 메서드들은 findById로 잔액을 읽고 -> 메모리에서 계산 -> UPDATE 합니다.
+        두 트랜잭션이 같은 계좌를 동시에 읽으면 나중에 커밋한 쪽이 먼저 커밋한 쪽의 변경을 덮어씁니다. (갱신 손실)
+
+        ## 비관적 락 (SELECT ... FOR UPDATE)
+        읽을 때 행을 잠가서 다른 트랜잭션을 대기시킵니다.
+        A -> B 이체는 A, B 순서로 / B -> A 이체는 B, A 순서로 잠그면 서로 상대방의 잠금을 기다리는 교착 상태(deadlock)가 됩니다.
+        그래서 이체 방향과 상관없이 항상 id가 작은 계좌부터 잠급니다. (모든 트랜잭션이 같은 순서로 잠금 -> 순환 대기 불가능)
+
+        ## 낙관적 락 (@Version)
+        잠그지 않고 읽은 뒤, UPDATE 할 때 버전이 그대로인지 확인합니다.
+        충돌이 드문 경우 대기 없이 빠르지만, 충돌하면 트랜잭션 전체를 다시 실행해야 합니다.
+     */
+
+    // 낙관적 락 충돌 시 최대 시도 횟수
+    private static final int MAX_OPTIMISTIC_ATTEMPTS = 10;
+
+    // 재시도 전 대기 시간 상한 (ms). 시도할수록 늘리고 무작위로 흩어서 같은 충돌이 반복되지 않게 합니다.
+    private static final long MAX_BACKOFF_MILLIS = 50;
+
+    // 비관적 락 이체 (두 계좌를 id 오름차순으로 잠근 뒤 이체)
+    @Transactional
+    public Transfer transferWithLock(Long fromId, Long toId, BigDecimal amount) {
+        if (fromId.equals(toId)) {
+            throw new IllegalArgumentException("같은 계좌로는 이체할 수 없습니다.");
+        }
+
+        Account first = lockAccount(Math.min(fromId, toId));
+        Account second = lockAccount(Math.max(fromId, toId));
+        Account from = fromId.equals(first.getId()) ? first : second;
+        Account to = from == first ? second : first;
+
+        // 잠금을 잡은 상태에서 읽은 최신 잔액으로 계산하므로 갱신 손실이 없습니다. (UPDATE는 더티 체킹)
+        from.withdraw(amount);
+        to.deposit(amount);
+        return transferService.record(from, to, amount);
+    }
+
+    // 낙관적 락 이체 (버전 충돌 시 새 트랜잭션으로 재시도)
+    // 재시도는 트랜잭션 밖에서 해야 하므로 이 메서드에는 @Transactional을 붙이지 않습니다.
+    public Transfer transferWithOptimisticRetry(Long fromId, Long toId, BigDecimal amount) {
+        if (fromId.equals(toId)) {
+            throw new IllegalArgumentException("같은 계좌로는 이체할 수 없습니다.");
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Account from = accountRepository.findById(fromId).orElseThrow(
+                            () -> new RuntimeException("출금 계좌를 찾을 수 없습니다.")
+                    );
+                    Account to = accountRepository.findById(toId).orElseThrow(
+                            () -> new RuntimeException("입금 계좌를 찾을 수 없습니다.")
+                    );
+
+                    from.withdraw(amount);
+                    to.deposit(amount);
+                    // 커밋 시점의 UPDATE에서 버전이 바뀌어 있으면 OptimisticLockingFailureException
+                    return transferService.record(from, to, amount);
+                });
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_OPTIMISTIC_ATTEMPTS) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * DB 안에서 잔액을 바로 수정하는 이체 (엔터티를 조회하지 않음)
+     * SELECT 2번 + UPDATE 2번 대신 조건부 UPDATE 2번으로 끝나고, 잔액 검사와 차감이 한 문장이라 갱신 손실이 없습니다.
+     * UPDATE도 행을 잠그므로 두 문장은 id가 작은 계좌부터 실행합니다. (교착 상태 방지)
+     */
+    @Transactional
+    public Transfer transferAtomic(Long fromId, Long toId, BigDecimal amount) {
+        applyTransferAtomically(fromId, toId, amount);
+
+        // 이체 내역은 조회 없이 프록시(참조)로 FK만 채워서 저장
+        return transferService.record(
+                accountRepository.getReferenceById(fromId),
+                accountRepository.getReferenceById(toId),
+                amount
+        );
+    }
+
+    /**
+     * 분할 잔액 모드를 지원하는 이체
+     * 입금 계좌가 분할 계좌라면 분할 행 하나에만 입금하므로, 같은 계좌로의 입금끼리 본 계좌 행을 두고 줄 서지 않습니다.
+     * 두 계좌의 행은 transferAtomic과 마찬가지로 id가 작은 계좌부터 잠급니다. (StripedBalanceService의 잠금 순서 참고)
+     */
+    @Transactional
+    public Transfer transferWithStripes(Long fromId, Long toId, BigDecimal amount) {
+        if (fromId.equals(toId)) {
+            throw new IllegalArgumentException("같은 계좌로는 이체할 수 없습니다.");
+        }
+
+        if (fromId < toId) {
+            stripedBalanceService.withdraw(fromId, amount);
+            stripedBalanceService.deposit(toId, amount);
+        } else {
+            stripedBalanceService.deposit(toId, amount);
+            stripedBalanceService.withdraw(fromId, amount);
+        }
+
+        return transferService.record(
+                accountRepository.getReferenceById(fromId),
+                accountRepository.getReferenceById(toId),
+                amount
+        );
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////
+
+    // 일괄 이체에서 한 트랜잭션으로 처리할 요청 수
+    private static final int TRANSFER_BATCH_CHUNK = 1000;
+
+    /**
+     * 일괄 이체 (급여 지급 등 대량 이체)
+     * 이체마다 트랜잭션을 열면 20만 건 = 트랜잭션 20만 번(커밋마다 fsync) + SQL 80만 번입니다.
+     * 여기서는 요청을 TRANSFER_BATCH_CHUNK 건씩 묶어서 묶음마다 트랜잭션 하나로 처리합니다.
+     * - 묶음에 등장하는 계좌를 한 번에 잠가서 조회 (SELECT 1번)
+     * - 잔액 검증은 메모리에서 요청 순서대로 (실패한 요청은 건너뛰고 사유를 기록)
+     * - 계좌별 최종 잔액만 UPDATE (계좌 수만큼, hibernate.jdbc.batch_size 단위 배치)
+     * - 이체 내역은 JDBC 배치 INSERT
+     * 묶음 처리 중 DB 오류가 나면 그 묶음 전체가 롤백되고, 묶음의 모든 요청이 실패로 보고됩니다. (다른 묶음은 영향 없음)
+     */
+    public TransferBatchResult transferBatch(List<TransferCommand> commands) {
+        List<TransferBatchResult.Failure> failures = new ArrayList<>();
+        int succeeded = 0;
+
+        for (int start = 0; start < commands.size(); start += TRANSFER_BATCH_CHUNK) {
+            int offset = start;
+            List<TransferCommand> chunk = commands.subList(start, Math.min(start + TRANSFER_BATCH_CHUNK, commands.size()));
+            List<TransferBatchResult.Failure> chunkFailures = new ArrayList<>();
+
+            try {
+                Integer applied = transactionTemplate.execute(status -> applyTransferChunk(chunk, offset, chunkFailures));
+                succeeded += applied;
+                failures.addAll(chunkFailures);
+            } catch (RuntimeException e) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    failures.add(new TransferBatchResult.Failure(offset + i, chunk.get(i), "일괄 처리 실패: " + e.getMessage()));
+                }
+            }
+        }
+        return new TransferBatchResult(succeeded, failures);
+    }
+
+    // 묶음 하나를 현재 트랜잭션에서 처리하고 성공 건수를 리턴
+    private int applyTransferChunk(List<TransferCommand> chunk, int offset, List<TransferBatchResult.Failure> failures) {
+        Set<Long> ids = new HashSet<>();
+        for (TransferCommand command : chunk) {
+            if (command.fromId() != null) ids.add(command.fromId());
+            if (command.toId() != null) ids.add(command.toId());
+        }
+
+        Map<Long, Account> accounts = new HashMap<>();
+        List<Account> locked = ids.isEmpty() ? List.of() : accountRepository.findAllByIdInForUpdate(ids);
+        for (Account account : locked) {
+            accounts.put(account.getId(), account);
+        }
+
+        // 계좌별 진행 중인 잔액 (앞선 요청의 결과가 다음 요청의 검증에 반영됨)
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        accounts.forEach((id, account) -> balances.put(id, account.getBalance()));
+
+        List<TransferCommand> accepted = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            TransferCommand command = chunk.get(i);
+            String reason = validate(command, balances);
+            if (reason != null) {
+                failures.add(new TransferBatchResult.Failure(offset + i, command, reason));
+                continue;
+            }
+            balances.merge(command.fromId(), command.amount().negate(), BigDecimal::add);
+            balances.merge(command.toId(), command.amount(), BigDecimal::add);
+            accepted.add(command);
+        }
+
+        // 최종 잔액만 엔터티에 반영 (잔액이 바뀐 계좌만 커밋 시점에 UPDATE)
+        balances.forEach((id, balance) -> accounts.get(id).setBalance(balance));
+        transferJdbcRepository.insertAll(accepted, LocalDateTime.now());
+        return accepted.size();
+    }
+
+    // 실패 사유 (문제가 없으면 null)
+    private String validate(TransferCommand command, Map<Long, BigDecimal> balances) {
+        if (command.fromId() == null || command.toId() == null || command.amount() == null) {
+            return "이체 정보가 올바르지 않습니다.";
+        }
+        if (command.amount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "이체 금액은 0보다 커야 합니다.";
+        }
+        if (command.fromId().equals(command.toId())) {
+            return "같은 계좌로는 이체할 수 없습니다.";
+        }
+        BigDecimal fromBalance = balances.get(command.fromId());
+        if (fromBalance == null) {
+            return "출금 계좌를 찾을 수 없습니다.";
+        }
+        if (!balances.containsKey(command.toId())) {
+            return "입금 계좌를 찾을 수 없습니다.";
+        }
+        if (fromBalance.compareTo(command.amount()) < 0) {
+            return "잔액이 부족합니다.";
+        }
+        return null;
+    }
+
+    /**
+     * 이체 내역을 비동기 기록기로 남기는 이체 (transferWithLog의 REQUIRES_NEW 대체)
+     * 내역 기록을 위해 커넥션을 하나 더 빌리지 않고, 기록기의 백그라운드 스레드가 모아서 배치로 INSERT 합니다.
+     * 기록 보장 수준은 study.account.journal.durability 설정을 따릅니다.
+     * FLUSH_BEFORE_ACK에서는 두 계좌 행을 잠근 채로 기록을 기다리므로, 기록이 밀리면 잠금 시간도 최대 ack-timeout만큼 길어집니다.
+     * 시간 안에 기록되지 않으면 내역을 취소하고 예외를 던지므로 잔액과 내역이 함께 롤백됩니다.
+     */
+    @Transactional
+    public void transferWithJournal(Long fromId, Long toId, BigDecimal amount) {
+        applyTransferAtomically(fromId, toId, amount);
+        transferJournalWriter.append(fromId, toId, amount);
+    }
+
+    // 조건부 UPDATE 2번으로 잔액 이동 (id가 작은 계좌부터)
+    private void applyTransferAtomically(Long fromId, Long toId, BigDecimal amount) {
+        if (fromId.equals(toId)) {
+            throw new IllegalArgumentException("같은 계좌로는 이체할 수 없습니다.");
+        }
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("이체 금액은 0보다 커야 합니다.");
+        }
+
+        if (fromId < toId) {
+            withdrawAtomically(fromId, amount);
+            depositAtomically(toId, amount);
+        } else {
+            depositAtomically(toId, amount);
+            // 여기서 실패하면 예외로 롤백되므로 앞의 입금도 취소됩니다.
+            withdrawAtomically(fromId, amount);
+        }
+    }
+
+    private void withdrawAtomically(Long id, BigDecimal amount) {
+        if (accountRepository.withdrawIfSufficient(id, amount) == 0) {
+            // 수정된 행이 없으면 이유를 확인 (실패했을 때만 추가 조회)
+            if (!accountRepository.existsById(id)) {
+                throw new RuntimeException("출금 계좌를 찾을 수 없습니다.");
+            }
+            throw new IllegalArgumentException("잔액이 부족합니다.");
+        }
+    }
+
+    private void depositAtomically(Long id, BigDecimal amount) {
+        if (accountRepository.depositAtomically(id, amount) == 0) {
+            throw new RuntimeException("입금 계좌를 찾을 수 없습니다.");
+        }
+    }
+
+    private Account lockAccount(Long id) {
+        return accountRepository.findByIdForUpdate(id).orElseThrow(
+                () -> new RuntimeException("계좌를 찾을 수 없습니다. id: " + id)
+        );
+    }
+
+    private void backoff(int attempt) {
+        long bound = Math.min(MAX_BACKOFF_MILLIS, 1L << attempt);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("이체 재시도 중 인터럽트되었습니다.", e);
+        }
+    }
+
 
 }
 
@@ -0,0 +1,199 @@
+package com.codeit.jpastudy.chap05.service;
+
+import com.codeit.jpastudy.chap05.entity.Account;
+import com.codeit.jpastudy.chap05.entity.AccountBalanceStripe;
+import com.codeit.jpastudy.chap05.repository.AccountBalanceStripeRepository;
+import com.codeit.jpastudy.chap05.repository.AccountRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 입금이 몰리는 계좌의 잔액을 여러 행으로 나눠서 관리 (분할 잔액 모드)
+ *
+ * - 입금: 분할 행을 돌아가면서(round-robin) 하나 골라 UPDATE -> 같은 행의 잠금을 기다리는 입금이 1/N로 줄어듦
+ * - 출금: 본 계좌 행에서만 차감. 부족하면 분할 잔액을 본 계좌로 합산한 뒤 한 번 더 시도
+ * - 조회: 본 계좌 잔액 + 분할 잔액 합계
+ * - 합산(consolidate): 분할 잔액을 본 계좌로 옮기고 0으로 비움 (주기 작업: StripedBalanceConsolidationConfig)
+ *
+ * 잠금 순서: 계좌 id 오름차순, 같은 계좌 안에서는 본 계좌 행 -> 분할 행(stripeNo 순)
+ * 합산은 본 계좌 행을 먼저 잠그고, 이체는 두 계좌를 id 순서로 처리하기 때문에 순환 대기가 생기지 않습니다.
+ * 분할 개수는 분할된 계좌만, 커밋된 뒤에 인스턴스 메모리에 캐시합니다.
+ * 일반 계좌는 입금마다 분할 행 개수를 조회하므로, 다른 인스턴스에서 분할 전환해도 재시작 없이 반영됩니다.
+ */
+@Service
+@RequiredArgsConstructor
+public class StripedBalanceService {
+
+    private final AccountRepository accountRepository;
+    private final AccountBalanceStripeRepository stripeRepository;
+    private final EntityManager em;
+
+    // 분할된 계좌의 분할 개수. 분할은 해제하지 않으므로 분할된 계좌 수보다 커지지 않습니다.
+    // 일반 계좌(0)는 넣지 않습니다. 넣으면 계좌 id마다 항목이 쌓이고, 나중에 분할 전환해도 반영되지 않습니다.
+    private final Map<Long, Integer> stripeCounts = new ConcurrentHashMap<>();
+
+    // 다음에 입금할 분할 행을 고르는 카운터
+    private final AtomicLong roundRobin = new AtomicLong();
+
+    // 계좌를 분할 잔액 모드로 전환 (기존 잔액은 본 계좌 행에 그대로 둠)
+    @Transactional
+    public void enableStriping(Long accountId, int stripes) {
+        if (stripes < 2) {
+            throw new IllegalArgumentException("분할 개수는 2 이상이어야 합니다.");
+        }
+        if (stripeRepository.countByAccountId(accountId) > 0) {
+            throw new IllegalStateException("이미 분할된 계좌입니다. id: " + accountId);
+        }
+
+        Account account = accountRepository.getReferenceById(accountId);
+        List<AccountBalanceStripe> rows = new ArrayList<>(stripes);
+        for (int no = 0; no < stripes; no++) {
+            rows.add(new AccountBalanceStripe(account, no));
+        }
+        stripeRepository.saveAll(rows);
+        cacheAfterCommit(accountId, stripes);
+    }
+
+    public boolean isStriped(Long accountId) {
+        return stripeCount(accountId) > 0;
+    }
+
+    // 분할 계좌면 분할 행 하나에, 아니면 본 계좌 행에 입금
+    @Transactional
+    public void deposit(Long accountId, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("입금 금액은 0보다 커야 합니다.");
+        }
+
+        int stripes = stripeCount(accountId);
+        int updated;
+        if (stripes > 0) {
+            updated = stripeRepository.depositToStripe(accountId, Math.floorMod(roundRobin.getAndIncrement(), stripes), amount);
+            // 분할 행에는 버전 컬럼이 없어서, 이전 잔액을 든 엔터티가 남아 있으면 합산 때 입금액이 조용히 사라집니다.
+            detachManagedStripes(accountId);
+        } else {
+            updated = accountRepository.depositAtomically(accountId, amount);
+        }
+        if (updated == 0) {
+            throw new RuntimeException("입금 계좌를 찾을 수 없습니다.");
+        }
+    }
+
+    // 본 계좌 행에서 출금 (부족하면 분할 잔액을 합산한 뒤 다시 시도)
+    @Transactional
+    public void withdraw(Long accountId, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("출금 금액은 0보다 커야 합니다.");
+        }
+        if (accountRepository.withdrawIfSufficient(accountId, amount) > 0) {
+            return;
+        }
+        if (isStriped(accountId) && consolidate(accountId).signum() > 0) {
+            // 합산 결과는 아래 UPDATE 전에 flush되고, 그 뒤로는 합산에서 잠근 본 계좌 엔터티의 잔액/버전이 DB와 달라집니다.
+            // 영속성 컨텍스트 전체를 비우지 않고 이 계좌만 분리합니다. (이미 관리 중이라 getReference는 조회도, 프록시 생성도 하지 않음)
+            boolean withdrawn = accountRepository.withdrawIfSufficient(accountId, amount) > 0;
+            em.detach(em.getReference(Account.class, accountId));
+            if (withdrawn) {
+                return;
+            }
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new RuntimeException("출금 계좌를 찾을 수 없습니다.");
+        }
+        throw new IllegalArgumentException("잔액이 부족합니다.");
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getBalance(Long accountId) {
+        return stripeRepository.findTotalBalance(accountId).orElseThrow(
+                () -> new RuntimeException("계좌를 찾을 수 없습니다. id: " + accountId)
+        );
+    }
+
+    /**
+     * 분할 잔액을 본 계좌로 합산
+     * @return 본 계좌로 옮긴 금액
+     */
+    @Transactional
+    public BigDecimal consolidate(Long accountId) {
+        // 본 계좌 행 -> 분할 행 순서로 잠금
+        Account account = accountRepository.findByIdForUpdate(accountId).orElseThrow(
+                () -> new RuntimeException("계좌를 찾을 수 없습니다. id: " + accountId)
+        );
+        BigDecimal total = BigDecimal.ZERO;
+        for (AccountBalanceStripe stripe : stripeRepository.findAllByAccountIdForUpdate(accountId)) {
+            total = total.add(stripe.getBalance());
+            stripe.setBalance(BigDecimal.ZERO);
+        }
+        if (total.signum() > 0) {
+            account.deposit(total);
+        }
+        return total;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findStripedAccountIds() {
+        return stripeRepository.findStripedAccountIds();
+    }
+
+    // 이 계좌의 분할 행 중 영속성 컨텍스트에 올라와 있는 것만 분리 (다른 엔터티는 그대로 유지)
+    // 세션 통계(공개 API)로 관리 중인 엔터티 키만 훑기 때문에 조회나 프록시 생성이 없습니다.
+    private void detachManagedStripes(Long accountId) {
+        List<Object> stripeIds = new ArrayList<>();
+        for (EntityKey key : em.unwrap(Session.class).getStatistics().getEntityKeys()) {
+            if (AccountBalanceStripe.class.getName().equals(key.getEntityName())) {
+                stripeIds.add(key.getIdentifier());
+            }
+        }
+        if (stripeIds.isEmpty()) return;
+
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        for (Object id : stripeIds) {
+            AccountBalanceStripe stripe = em.getReference(AccountBalanceStripe.class, id);
+            if (accountId.equals(util.getIdentifier(stripe.getAccount()))) {
+                em.detach(stripe);
+            }
+        }
+    }
+
+    private int stripeCount(Long accountId) {
+        Integer cached = stripeCounts.get(accountId);
+        if (cached != null) {
+            return cached;
+        }
+        int stripes = (int) stripeRepository.countByAccountId(accountId);
+        if (stripes > 0) {
+            cacheAfterCommit(accountId, stripes);
+        }
+        return stripes;
+    }
+
+    // 롤백되면 분할 행도 사라지므로, 커밋이 끝난 뒤에만 캐시에 넣습니다.
+    // (커밋 전에 넣으면 롤백 후에도 분할 계좌로 남아서 모든 입금이 "입금 계좌를 찾을 수 없습니다."로 실패)
+    private void cacheAfterCommit(Long accountId, int stripes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stripeCounts.put(accountId, stripes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stripeCounts.put(accountId, stripes);
+            }
+        });
+    }
+}
@@ -27,6 +27,12 @@ public class TransferService {
         transferRepository.save(transfer);
     }
 
+    // 이체 내역 기록 (호출한 쪽의 트랜잭션에 참여)
+    @Transactional(propagation = Propagation.REQUIRED)
+    public Transfer record(Account from, Account to, BigDecimal amount) {
+        return transferRepository.save(new Transfer(from, to, amount));
+    }
+
     /**
      * 항상 새로운 트랜잭션을 시작
      * 기존 트랜잭션과 독립적으로 실행됨
@@ -0,0 +1,110 @@
+package com.codeit.jpastudy.common.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 애플리케이션 메모리에 보관하는 조회 결과 캐시
+ * - 최대 개수를 넘으면 가장 오래 사용되지 않은 항목부터 제거 (LRU)
+ * - 저장 후 ttl이 지나면 만료
+ * - 조회 중에 무효화가 일어나면 그 결과는 저장하지 않습니다. (무효화 직전 값이 다시 캐시되는 것 방지)
+ */
+public class LocalQueryResultCache<K, V> implements QueryResultCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // accessOrder = true -> 조회할 때마다 맨 뒤로 이동 (LRU)
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // 무효화가 일어날 때마다 증가하는 세대 번호
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LocalQueryResultCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("캐시 최대 개수는 0보다 커야 합니다.");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                boolean full = size() > LocalQueryResultCache.this.maxSize;
+                if (full) evictions.increment();
+                return full;
+            }
+        };
+    }
+
+    @Override
+    public V get(K key, Supplier<V> loader) {
+        long now = System.nanoTime();
+        long gen;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt - now > 0) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+            gen = generation.get();
+        }
+
+        // DB 조회는 락 밖에서 실행 (다른 키 조회를 막지 않도록)
+        misses.increment();
+        V value = loader.get();
+
+        synchronized (this) {
+            if (generation.get() == gen) {
+                entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized void evict(K key) {
+        generation.incrementAndGet();
+        if (entries.remove(key) != null) evictions.increment();
+    }
+
+    @Override
+    public synchronized void evictIf(Predicate<K> condition) {
+        generation.incrementAndGet();
+        Iterator<K> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (condition.test(it.next())) {
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        generation.incrementAndGet();
+        evictions.add(entries.size());
+        entries.clear();
+    }
+
+    @Override
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.codeit.jpastudy.common.cache;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 조회 결과 캐시
+ * 같은 조건으로 반복되는 조회 결과를 보관해 두고, 데이터가 바뀌었을 때 해당 키만 골라서 무효화합니다.
+ * 구현체를 바꿔 끼울 수 있도록 인터페이스로 분리했습니다. (기본 구현: LocalQueryResultCache)
+ */
+public interface QueryResultCache<K, V> {
+
+    // 캐시에 있으면 꺼내 주고, 없으면 loader로 조회해서 저장 후 리턴
+    V get(K key, Supplier<V> loader);
+
+    void evict(K key);
+
+    // 조건에 맞는 키만 무효화
+    void evictIf(Predicate<K> condition);
+
+    void clear();
+
+    CacheStats stats();
+
+    record CacheStats(long hits, long misses, long evictions, int size) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.codeit.jpastudy.common.dto;
+
+// 대량 저장 결과 (저장 건수, 소요 시간)
+public record BulkPersistResult(long rows, long elapsedNanos) {
+
+    public long elapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    // 초당 저장 건수
+    public double rowsPerSecond() {
+        if (elapsedNanos == 0) return 0;
+        return rows * 1_000_000_000.0 / elapsedNanos;
+    }
+}
@@ -0,0 +1,51 @@
+package com.codeit.jpastudy.common.service;
+
+import com.codeit.jpastudy.common.dto.BulkPersistResult;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 엔터티 대량 저장 서비스 (Product, Student, Employee 등 어떤 엔터티든 사용 가능)
+ * saveAll로 수십만 건을 저장하면 모든 엔터티가 영속성 컨텍스트에 쌓여서
+ * flush 때마다 더티 체킹 대상이 계속 늘어나고 메모리도 계속 증가합니다.
+ * 청크 단위로 flush(INSERT 전송) 후 clear(영속성 컨텍스트 비우기)를 해서 메모리 사용량을 일정하게 유지합니다.
+ * 주의: clear는 같은 트랜잭션 안에서 미리 조회해 둔 엔터티도 준영속 상태로 만듭니다.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkPersistService {
+
+    // hibernate.jdbc.batch_size의 배수로 맞추면 배치가 꽉 찬 상태로 전송됩니다.
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final EntityManager em;
+
+    @Transactional
+    public BulkPersistResult persistAll(Iterable<?> entities) {
+        return persistAll(entities, DEFAULT_CHUNK_SIZE);
+    }
+
+    @Transactional
+    public BulkPersistResult persistAll(Iterable<?> entities, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("청크 크기는 0보다 커야 합니다.");
+        }
+
+        long start = System.nanoTime();
+        long count = 0;
+        for (Object entity : entities) {
+            em.persist(entity);
+
+            if (++count % chunkSize == 0) {
+                em.flush(); // 지금까지 모인 INSERT를 DB로 전송
+                em.clear(); // 저장이 끝난 엔터티는 더 이상 관리하지 않음
+            }
+        }
+        em.flush();
+        em.clear();
+
+        return new BulkPersistResult(count, System.nanoTime() - start);
+    }
+}
@@ -1,11 +1,21 @@
 package com.codeit.jpastudy.chap01.repository;
 
 import com.codeit.jpastudy.chap01.entity.Product;
+import com.codeit.jpastudy.chap02.repository.ProductRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -15,6 +25,12 @@ class JdbcProductRepositoryTest {
     @Autowired
     JdbcProductRepository repository;
 
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    ProductRepository productRepository;
+
     @Test
     void insertTest() {
         repository.insertProduct("아이폰", 1500000, Product.Category.ELECTRONIC);
@@ -28,6 +44,150 @@ class JdbcProductRepositoryTest {
         }
     }
 
+    @Test
+    void insertBatchTest() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= 10000; i++) {
+            Product product = new Product();
+            product.setName("상품" + i);
+            product.setPrice(1000 * i);
+            product.setCategory(Product.Category.values()[i % Product.Category.values().length]);
+            products.add(product);
+        }
+
+        long start = System.currentTimeMillis();
+        int inserted = repository.insertProducts(products);
+        long elapsed = System.currentTimeMillis() - start;
+
+        System.out.println("inserted = " + inserted + ", elapsed = " + elapsed + "ms");
+        assertEquals(products.size(), inserted);
+    }
+
+    @Test
+    void streamAllTest() {
+        // 리스트에 모으지 않고 한 행씩 처리 -> 행이 아무리 많아도 메모리 사용량이 일정
+        AtomicLong count = new AtomicLong();
+        AtomicLong priceSum = new AtomicLong();
+
+        repository.forEachProduct(200, product -> {
+            count.incrementAndGet();
+            priceSum.addAndGet(product.getPrice());
+        });
+
+        System.out.println("count = " + count.get() + ", priceSum = " + priceSum.get());
+        assertEquals(repository.selectAllProducts().size(), count.get());
+    }
+
+    @Test
+    void rowMapperAllocationTest() throws SQLException {
+        // 컬럼명 기반 매핑과 ProductRowMapper의 행당 할당량(byte)을 비교합니다.
+        // 행이 적으면 측정값이 흔들리므로 최소 행 수를 채워 둡니다.
+        int missing = 1000 - repository.selectAllProducts().size();
+        if (missing > 0) {
+            List<Product> products = new ArrayList<>();
+            for (int i = 1; i <= missing; i++) {
+                Product product = new Product();
+                product.setName("측정상품" + i);
+                product.setPrice(i);
+                product.setCategory(Product.Category.values()[i % Product.Category.values().length]);
+                products.add(product);
+            }
+            repository.insertProducts(products);
+        }
+
+        // 워밍업 후 측정해야 JIT 컴파일 영향이 줄어듭니다.
+        for (int i = 0; i < 5; i++) {
+            measureAllocation(false);
+            measureAllocation(true);
+        }
+        double byName = measureAllocation(false);
+        double byIndex = measureAllocation(true);
+
+        System.out.println("컬럼명 매핑 행당 할당량 = " + byName + " bytes");
+        System.out.println("ProductRowMapper 행당 할당량 = " + byIndex + " bytes");
+        // Timestamp 중간 객체가 없으므로 행당 할당량이 더 적어야 한다.
+        assertTrue(byIndex < byName,
+                "ProductRowMapper(" + byIndex + ")가 컬럼명 매핑(" + byName + ")보다 적게 할당해야 합니다.");
+    }
+
+    @Test
+    void copyBulkLoadTest() {
+        int total = 100_000;
+
+        // 상품을 미리 만들어 두지 않고 필요할 때마다 하나씩 생성하는 iterator
+        Iterator<Product> producer = new Iterator<>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < total;
+            }
+
+            @Override
+            public Product next() {
+                i++;
+                Product product = new Product();
+                product.setName("대량상품, \"" + i + "\"");
+                product.setPrice(i);
+                product.setCategory(Product.Category.values()[i % Product.Category.values().length]);
+                return product;
+            }
+        };
+
+        long start = System.currentTimeMillis();
+        long copied = repository.copyProducts(producer);
+        long copyElapsed = System.currentTimeMillis() - start;
+
+        // 비교용: 같은 건수를 JPA saveAll로 저장
+        List<com.codeit.jpastudy.chap02.entity.Product> entities = new ArrayList<>();
+        for (int i = 1; i <= total; i++) {
+            entities.add(com.codeit.jpastudy.chap02.entity.Product.builder()
+                    .name("대량상품" + i)
+                    .price(i)
+                    .category(com.codeit.jpastudy.chap02.entity.Product.Category.FOOD)
+                    .build());
+        }
+        start = System.currentTimeMillis();
+        productRepository.saveAll(entities);
+        long jpaElapsed = System.currentTimeMillis() - start;
+
+        System.out.println("COPY " + copied + "건: " + copyElapsed + "ms");
+        System.out.println("JPA saveAll " + total + "건: " + jpaElapsed + "ms");
+        assertEquals(total, copied);
+    }
+
+    private double measureAllocation(boolean useMapper) throws SQLException {
+        com.sun.management.ThreadMXBean threadBean
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM product");
+             ResultSet rs = pstmt.executeQuery()) {
+
+            // 드라이버가 결과를 다 읽어온 뒤 매핑 구간만 측정
+            long rows = 0;
+            long before = threadBean.getCurrentThreadAllocatedBytes();
+            ProductRowMapper mapper = useMapper ? ProductRowMapper.of(rs) : null;
+            while (rs.next()) {
+                Product product;
+                if (useMapper) {
+                    product = mapper.map(rs);
+                } else {
+                    product = new Product();
+                    product.setId(rs.getLong("id"));
+                    product.setName(rs.getString("name"));
+                    product.setPrice(rs.getInt("price"));
+                    product.setCategory(Product.Category.valueOf(rs.getString("category")));
+                    product.setCreateAt(rs.getTimestamp("create_at").toLocalDateTime());
+                    product.setUpdateAt(rs.getTimestamp("update_at").toLocalDateTime());
+                }
+                rows++;
+            }
+            long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+            return rows == 0 ? 0 : (double) allocated / rows;
+        }
+    }
+
 
 
 }
\ No newline at end of file
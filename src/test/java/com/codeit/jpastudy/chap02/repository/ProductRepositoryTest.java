@@ -2,6 +2,9 @@ package com.codeit.jpastudy.chap02.repository;
 
 import com.codeit.jpastudy.chap02.entity.Product;
 import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -66,6 +69,47 @@ class ProductRepositoryTest {
         System.out.println("foundProd = " + foundProd);
     }
 
+    @Test
+    @Rollback
+    @DisplayName("시퀀스 전략 + JDBC 배치로 10만 건을 저장하면 왕복 횟수가 배치 단위로 줄어야 한다.")
+    void bulkInsertTest() {
+        int total = 100_000;
+        int batchSize = 50; // hibernate.jdbc.batch_size와 동일하게
+
+        Statistics statistics = em.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        long start = System.currentTimeMillis();
+        for (int i = 1; i <= total; i++) {
+            Product product = new Product();
+            product.setName("상품" + i);
+            product.setPrice(i);
+            product.setCategory(Product.Category.FOOD);
+            em.persist(product);
+
+            // 영속성 컨텍스트가 계속 커지지 않도록 배치 단위로 비워 줍니다.
+            if (i % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        long elapsed = System.currentTimeMillis() - start;
+
+        // IDENTITY 전략이었다면 INSERT 10만 번 + 기타 -> 10만 번 이상
+        // 시퀀스 + 배치라면 INSERT 배치 2000번 + 시퀀스 호출 2000번 정도
+        long statements = statistics.getPrepareStatementCount();
+        System.out.println("insert count = " + statistics.getEntityInsertCount());
+        System.out.println("prepared statements = " + statements + ", elapsed = " + elapsed + "ms");
+        assertEquals(total, statistics.getEntityInsertCount());
+        assertTrue(statements <= (total / batchSize) * 2 + 10);
+
+        statistics.setStatisticsEnabled(false);
+    }
+
 
 
 }
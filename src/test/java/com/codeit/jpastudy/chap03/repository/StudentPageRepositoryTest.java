@@ -10,9 +10,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -164,6 +168,29 @@ class StudentPageRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("키셋 페이징으로 끝까지 넘기면 중복이나 누락 없이 모든 학생을 조회해야 한다.")
+    void keysetScrollTest() {
+        // given
+        String name = "김메롱";
+        long expected = studentPageRepository.findByNameContaining(name, Sort.unsorted()).size();
+
+        // when
+        Set<UUID> ids = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Window<Student> window = studentPageRepository.scrollByNameContaining(name, cursor);
+            window.forEach(s -> ids.add(s.getId()));
+            cursor = StudentScrollCursor.next(window);
+            pages++;
+        } while (cursor != null);
+
+        // then
+        System.out.println("pages = " + pages + ", students = " + ids.size());
+        assertEquals(expected, ids.size());
+    }
+
 
 
 
@@ -1,6 +1,9 @@
 package com.codeit.jpastudy.chap03.repository;
 
+import com.codeit.jpastudy.chap03.dto.StudentNameCity;
 import com.codeit.jpastudy.chap03.entity.Student;
+import com.codeit.jpastudy.common.id.UuidV7Generator;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.Tuple;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,9 +11,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,6 +27,12 @@ class StudentRepositoryTest {
     @Autowired
     StudentRepository studentRepository;
 
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     @BeforeEach // 테스트 메서드 이전에 항상 자동 호출되는 메서드
     void insertData() {
         Student s1 = Student.builder()
@@ -101,6 +113,62 @@ class StudentRepositoryTest {
 
     }
     
+    @Test
+    @DisplayName("JPQL 생성자 표현식으로 DTO(record) 조회하기")
+    void recordProjectionTest() {
+        // given
+        String name = "춘";
+
+        // when
+        List<StudentNameCity> students = studentRepository.searchNameCityByName(name);
+        List<StudentNameCity> byCity = studentRepository.findNameCityByCity("서울시");
+
+        // then
+        System.out.println("\n\n\n");
+        students.forEach(System.out::println);
+        byCity.forEach(System.out::println);
+        System.out.println("\n\n\n");
+        assertTrue(students.contains(new StudentNameCity("춘식이", "서울시")));
+        assertTrue(byCity.contains(new StudentNameCity("춘식이", "서울시")));
+    }
+
+    @Test
+    @DisplayName("엔터티, Tuple, DTO(record) 조회 속도 비교")
+    void projectionBenchmark() {
+        // given
+        em.createNativeQuery("""
+                INSERT INTO tbl_student (stu_id, stu_name, city, major)
+                SELECT gen_random_uuid(), '투영학생' || g, '도시' || (g % 1000), '전공' || (g % 500)
+                FROM generate_series(1, 200000) g
+                """).executeUpdate();
+        String name = "투영학생";
+        int rounds = 5;
+
+        // when
+        long entityElapsed = 0, tupleElapsed = 0, recordElapsed = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.currentTimeMillis();
+            studentRepository.findByNameContaining(name);
+            entityElapsed += System.currentTimeMillis() - start;
+            em.clear(); // 조회한 엔터티가 쌓여 다음 라운드에 영향을 주지 않도록
+
+            start = System.currentTimeMillis();
+            studentRepository.searchByNameWithJPQL(name);
+            tupleElapsed += System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            studentRepository.searchNameCityByName(name);
+            recordElapsed += System.currentTimeMillis() - start;
+        }
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("엔터티: 평균 " + entityElapsed / rounds + "ms");
+        System.out.println("Tuple: 평균 " + tupleElapsed / rounds + "ms");
+        System.out.println("record: 평균 " + recordElapsed / rounds + "ms");
+        System.out.println("\n\n\n");
+    }
+
     @Test
     @DisplayName("JPQL로 삭제해보기")
     void deleteTestWithJPQL() {
@@ -117,6 +185,126 @@ class StudentRepositoryTest {
 
         
     }
+
+    @Test
+    @DisplayName("벌크 삭제 후 삭제된 엔터티만 영속성 컨텍스트에서 빠져야 한다.")
+    void coherentBulkDeleteTest() {
+        // given
+        Student target = studentRepository.findByName("어피치").get(0);
+        Student other = studentRepository.findByName("춘식이").get(0);
+
+        // when
+        int deleted = studentRepository.deleteByNameAndCityInBatches("어피치", "제주도");
+
+        // then
+        assertTrue(deleted >= 1);
+        assertFalse(em.contains(target));
+        assertTrue(em.contains(other));
+        assertEquals(0, studentRepository.findByName("어피치").size());
+    }
+
+    @Test
+    @DisplayName("10만 건을 id 묶음 단위로 삭제")
+    void deleteByIdsInBatchesTest() {
+        // given
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            students.add(Student.builder().name("삭제대상" + i).city("삭제시").major("삭제학").build());
+        }
+        studentRepository.saveAll(students);
+        studentRepository.flush();
+        List<UUID> ids = students.stream().map(Student::getId).toList();
+
+        // when - 1000개씩 -> DELETE 100번
+        long start = System.currentTimeMillis();
+        int deleted = studentRepository.deleteAllByIdInBatches(ids, 1000);
+        long elapsed = System.currentTimeMillis() - start;
+
+        // then
+        System.out.println("deleted = " + deleted + ", elapsed = " + elapsed + "ms");
+        assertEquals(ids.size(), deleted);
+        assertFalse(em.contains(students.get(0)));
+    }
+
+    @Test
+    @DisplayName("트라이그램 인덱스 검색과 인덱스 없는 전체 스캔의 속도 비교")
+    void trigramSearchBenchmark() {
+        // given - 200만 건 (트랜잭션이 롤백되므로 테스트 후 삭제됨)
+        em.createNativeQuery("""
+                INSERT INTO tbl_student (stu_id, stu_name, city, major)
+                SELECT gen_random_uuid(), '학생' || g, '도시' || (g % 1000), '전공' || (g % 500)
+                FROM generate_series(1, 2000000) g
+                """).executeUpdate();
+        // 인덱스 생성은 기본적으로 꺼져 있으므로(study.student.trigram-index.enabled) 테스트에서 직접 만듭니다.
+        // DDL도 트랜잭션 안에서 실행되므로 테스트가 끝나면 함께 롤백됩니다. (확장 설치 권한이 필요)
+        em.createNativeQuery("CREATE EXTENSION IF NOT EXISTS pg_trgm").executeUpdate();
+        em.createNativeQuery("CREATE INDEX IF NOT EXISTS idx_student_name_trgm ON tbl_student USING gin (stu_name gin_trgm_ops)")
+                .executeUpdate();
+        em.createNativeQuery("ANALYZE tbl_student").executeUpdate();
+
+        String keyword = "1234567";
+
+        // 실행 계획이 트라이그램 인덱스를 사용하는지 먼저 확인 (인덱스가 없으면 비교가 의미 없음)
+        List<String> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM tbl_student WHERE stu_name ILIKE '%" + keyword + "%'", String.class);
+        assertTrue(plan.stream().anyMatch(line -> line.contains("idx_student_name_trgm")), String.join("\n", plan));
+
+        // when - 인덱스 사용
+        long start = System.currentTimeMillis();
+        List<Student> withIndex = studentRepository.searchByNameTrgm(keyword);
+        long indexElapsed = System.currentTimeMillis() - start;
+
+        // when - 인덱스 사용 금지 (현재 트랜잭션에서만) -> 전체 스캔
+        em.createNativeQuery("SET LOCAL enable_bitmapscan = off").executeUpdate();
+        em.createNativeQuery("SET LOCAL enable_indexscan = off").executeUpdate();
+        start = System.currentTimeMillis();
+        List<Student> fullScan = studentRepository.searchByNameTrgm(keyword);
+        long scanElapsed = System.currentTimeMillis() - start;
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("trigram index: " + withIndex.size() + "건, " + indexElapsed + "ms");
+        System.out.println("full scan: " + fullScan.size() + "건, " + scanElapsed + "ms");
+        System.out.println("\n\n\n");
+        assertEquals(fullScan.size(), withIndex.size());
+    }
+
+    @Test
+    @DisplayName("문자열 랜덤 UUID PK와 uuid 타입 v7 PK의 INSERT 속도, 인덱스 크기 비교")
+    void uuidKeyBenchmark() {
+        // given - 임시 테이블 (트랜잭션이 끝나면 사라짐)
+        int total = 500_000;
+        jdbcTemplate.execute("CREATE TEMP TABLE tmp_student_str (stu_id varchar(255) PRIMARY KEY, stu_name varchar(255))");
+        jdbcTemplate.execute("CREATE TEMP TABLE tmp_student_uuid (stu_id uuid PRIMARY KEY, stu_name varchar(255))");
+
+        List<Object[]> strRows = new ArrayList<>(total);
+        List<Object[]> uuidRows = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            strRows.add(new Object[]{UUID.randomUUID().toString(), "학생" + i});
+            uuidRows.add(new Object[]{UuidV7Generator.next(), "학생" + i});
+        }
+
+        // when
+        long start = System.currentTimeMillis();
+        jdbcTemplate.batchUpdate("INSERT INTO tmp_student_str VALUES (?, ?)", strRows);
+        long strElapsed = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        jdbcTemplate.batchUpdate("INSERT INTO tmp_student_uuid VALUES (?, ?)", uuidRows);
+        long uuidElapsed = System.currentTimeMillis() - start;
+
+        Long strIndexSize = jdbcTemplate.queryForObject(
+                "SELECT pg_relation_size('tmp_student_str_pkey')", Long.class);
+        Long uuidIndexSize = jdbcTemplate.queryForObject(
+                "SELECT pg_relation_size('tmp_student_uuid_pkey')", Long.class);
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("varchar + 랜덤 UUID: " + strElapsed + "ms, PK 인덱스 " + strIndexSize / 1024 + "KB");
+        System.out.println("uuid + v7: " + uuidElapsed + "ms, PK 인덱스 " + uuidIndexSize / 1024 + "KB");
+        System.out.println("\n\n\n");
+        assertTrue(uuidIndexSize < strIndexSize);
+    }
     
 
     
@@ -0,0 +1,108 @@
+package com.codeit.jpastudy.chap03.service;
+
+import com.codeit.jpastudy.chap03.entity.Student;
+import com.codeit.jpastudy.chap03.event.StudentChangedEvent;
+import com.codeit.jpastudy.chap03.repository.StudentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 색인은 커밋된 변경만 반영하기 때문에 @Transactional 없이 실제로 저장하고, 테스트 후에 직접 지웁니다.
+@SpringBootTest(properties = "study.student.ngram-index.enabled=true")
+class StudentIndexedSearchServiceTest {
+
+    @Autowired
+    StudentIndexedSearchService searchService;
+
+    @Autowired
+    StudentRepository studentRepository;
+
+    @Autowired
+    ApplicationEventPublisher publisher;
+
+    List<Student> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        saved.add(studentRepository.saveAndFlush(Student.builder()
+                .name("색인학생하나").city("색인시").major("데이터베이스공학").build()));
+        saved.add(studentRepository.saveAndFlush(Student.builder()
+                .name("색인학생둘").city("색인시").major("소프트웨어공학").build()));
+        saved.add(studentRepository.saveAndFlush(Student.builder()
+                .name("학생색인셋").city("다른시").major("데이터과학").build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        studentRepository.deleteAll(saved);
+    }
+
+    @Test
+    @DisplayName("색인으로 부분 검색하면 LIKE 검색과 같은 결과가 나와야 한다.")
+    void searchTest() {
+        // when
+        List<Student> byName = searchService.findByNameContaining("색인학생");
+        List<Student> byMajor = searchService.findByMajorContaining("데이터");
+
+        // then
+        assertEquals(studentRepository.findByNameContaining("색인학생").size(), byName.size());
+        assertEquals(studentRepository.findByMajorContaining("데이터").size(), byMajor.size());
+        assertTrue(byName.stream().allMatch(s -> s.getName().contains("색인학생")));
+    }
+
+    @Test
+    @DisplayName("학생이 삭제되면 색인 검색 결과에서도 빠져야 한다.")
+    void removeTest() {
+        // given
+        int before = searchService.findByNameContaining("색인학생").size();
+
+        // when
+        studentRepository.delete(saved.remove(0));
+
+        // then
+        assertEquals(before - 1, searchService.findByNameContaining("색인학생").size());
+    }
+
+    @Test
+    @DisplayName("수정이 반복되어 색인이 압축된 뒤에도 검색 결과가 같아야 한다.")
+    void compactTest() {
+        // given - 수정할 때마다 이전 문서는 삭제 표시되고 새 문서 번호가 붙습니다.
+        Student student = saved.get(0);
+
+        // when - DB 값은 그대로 두고 수정 이벤트만 반복 (마지막은 원래 값)
+        for (int i = 0; i < 2000; i++) {
+            Student renamed = Student.builder()
+                    .id(student.getId())
+                    .name(i % 2 == 0 ? "압축학생" : student.getName())
+                    .city(student.getCity())
+                    .major(student.getMajor())
+                    .build();
+            publisher.publishEvent(new StudentChangedEvent(renamed, StudentChangedEvent.ChangeType.UPDATE));
+        }
+
+        // then
+        assertEquals(studentRepository.findByNameContaining("색인학생").size(),
+                searchService.findByNameContaining("색인학생").size());
+        assertEquals(studentRepository.findByMajorContaining("데이터").size(),
+                searchService.findByMajorContaining("데이터").size());
+    }
+
+    @Test
+    @DisplayName("3글자 미만 검색어는 DB 검색으로 처리된다.")
+    void shortTermTest() {
+        assertEquals(
+                studentRepository.findByCityContaining("색인").size(),
+                searchService.findByCityContaining("색인").size()
+        );
+    }
+
+}
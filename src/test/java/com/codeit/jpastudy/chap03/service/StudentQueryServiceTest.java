@@ -0,0 +1,105 @@
+package com.codeit.jpastudy.chap03.service;
+
+import com.codeit.jpastudy.chap03.dto.StudentSummary;
+import com.codeit.jpastudy.chap03.entity.Student;
+import com.codeit.jpastudy.chap03.repository.StudentRepository;
+import com.codeit.jpastudy.common.cache.QueryResultCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class StudentQueryServiceTest {
+
+    @Autowired
+    StudentQueryService studentQueryService;
+
+    @Autowired
+    StudentRepository studentRepository;
+
+    @BeforeEach
+    void setUp() {
+        studentRepository.save(Student.builder().name("캐시학생").city("캐시시").major("캐시학").build());
+        studentRepository.save(Student.builder().name("다른학생").city("캐시시").major("경영학").build());
+        studentRepository.flush();
+    }
+
+    @Test
+    @DisplayName("같은 조건으로 두 번 조회하면 두 번째는 캐시에서 가져와야 한다.")
+    void cacheHitTest() {
+        // given
+        QueryResultCache.CacheStats before = studentQueryService.cacheStats().get("findByName");
+
+        // when
+        List<StudentSummary> first = studentQueryService.findByName("캐시학생");
+        List<StudentSummary> second = studentQueryService.findByName("캐시학생");
+
+        // then
+        QueryResultCache.CacheStats after = studentQueryService.cacheStats().get("findByName");
+        assertEquals(first, second);
+        assertEquals(1, after.misses() - before.misses());
+        assertEquals(1, after.hits() - before.hits());
+    }
+
+    @Test
+    @DisplayName("같은 이름의 학생이 추가되면 해당 이름의 캐시만 무효화되어야 한다.")
+    void evictOnInsertTest() {
+        // given
+        int before = studentQueryService.findByName("캐시학생").size();
+        int otherBefore = studentQueryService.findByCityAndMajor("캐시시", "경영학").size();
+
+        // when
+        studentRepository.saveAndFlush(Student.builder().name("캐시학생").city("새도시").major("캐시학").build());
+
+        // then
+        assertEquals(before + 1, studentQueryService.findByName("캐시학생").size());
+        assertEquals(otherBefore, studentQueryService.findByCityAndMajor("캐시시", "경영학").size());
+    }
+
+    @Test
+    @DisplayName("학생 이름이 수정되면 수정 전/후 이름의 캐시만 무효화되어야 한다.")
+    void evictOnUpdateTest() {
+        // given
+        Student target = studentRepository.findByName("캐시학생").get(0);
+        int targetCount = studentQueryService.findByName("캐시학생").size();
+        int otherCount = studentQueryService.findByName("다른학생").size();
+        int renamedCount = studentRepository.findByName("개명학생").size();
+        QueryResultCache.CacheStats before = studentQueryService.cacheStats().get("findByName");
+
+        // when - 같은 id로 저장하면 merge -> flush 시점에 수정 이벤트 발행 (수정 전 값 포함)
+        studentRepository.saveAndFlush(Student.builder()
+                .id(target.getId()).name("개명학생").city(target.getCity()).major(target.getMajor()).build());
+
+        // then - 관계없는 이름은 캐시에 남아 있고, 이전/새 이름은 다시 조회된다.
+        assertEquals(otherCount, studentQueryService.findByName("다른학생").size());
+        assertEquals(targetCount - 1, studentQueryService.findByName("캐시학생").size());
+        assertEquals(renamedCount + 1, studentQueryService.findByName("개명학생").size());
+
+        QueryResultCache.CacheStats after = studentQueryService.cacheStats().get("findByName");
+        assertEquals(1, after.hits() - before.hits());
+        assertEquals(2, after.misses() - before.misses());
+    }
+
+    @Test
+    @DisplayName("JPQL 벌크 삭제 후에도 캐시에 삭제된 학생이 남아있으면 안 된다.")
+    void evictOnBulkDeleteTest() {
+        // given
+        assertFalse(studentQueryService.getStudentByNameOrCity("캐시학생", "없는도시").isEmpty());
+
+        // when
+        studentQueryService.deleteByNameAndCity("캐시학생", "캐시시");
+
+        // then
+        assertTrue(studentQueryService.findByName("캐시학생").isEmpty());
+        assertTrue(studentQueryService.getStudentByNameOrCity("캐시학생", "없는도시").isEmpty());
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.codeit.jpastudy.chap03.service;
+
+import com.codeit.jpastudy.chap03.entity.Student;
+import com.codeit.jpastudy.chap03.event.StudentChangedEvent;
+import com.codeit.jpastudy.chap03.repository.StudentPageRepository;
+import com.codeit.jpastudy.common.cache.QueryResultCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class StudentSearchServiceTest {
+
+    @Autowired
+    StudentSearchService studentSearchService;
+
+    @Autowired
+    StudentPageRepository studentPageRepository;
+
+    @Autowired
+    QueryResultCache<String, Long> studentCountCache;
+
+    @Autowired
+    ApplicationEventPublisher publisher;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        studentCountCache.clear();
+        for (int i = 1; i <= 55; i++) {
+            studentPageRepository.save(Student.builder()
+                    .name("슬라이스" + i)
+                    .city("도시" + i)
+                    .major("전공" + i)
+                    .build());
+        }
+        studentPageRepository.flush();
+    }
+
+    @Test
+    @DisplayName("Slice 조회는 다음 페이지 존재 여부만 알려준다.")
+    void sliceTest() {
+        // given
+        Pageable pageable = PageRequest.of(0, 10);
+
+        // when
+        Slice<Student> slice = studentSearchService.searchByName("슬라이스", pageable);
+
+        // then
+        assertEquals(10, slice.getNumberOfElements());
+        assertTrue(slice.hasNext());
+    }
+
+    @Test
+    @DisplayName("총 개수는 캐시되고, 해당 검색어의 학생이 추가되면 다시 계산되어야 한다.")
+    void countCacheTest() {
+        // given
+        String name = "슬라이스";
+        Pageable pageable = PageRequest.of(1, 10);
+        QueryResultCache.CacheStats before = studentSearchService.countCacheStats();
+
+        // when
+        Page<Student> first = studentSearchService.searchPageByName(name, pageable);
+        Page<Student> second = studentSearchService.searchPageByName(name, pageable);
+        QueryResultCache.CacheStats stats = studentSearchService.countCacheStats();
+
+        // then
+        assertEquals(first.getTotalElements(), second.getTotalElements());
+        assertEquals(1, stats.misses() - before.misses());
+        assertEquals(1, stats.hits() - before.hits());
+
+        // 검색어에 걸리는 학생을 추가하면 (flush 시점에 이벤트 발행) 캐시가 무효화된다.
+        studentPageRepository.saveAndFlush(Student.builder()
+                .name("새슬라이스")
+                .city("도시")
+                .major("전공")
+                .build());
+
+        Page<Student> third = studentSearchService.searchPageByName(name, pageable);
+        assertEquals(first.getTotalElements() + 1, third.getTotalElements());
+        assertEquals(2, studentSearchService.countCacheStats().misses() - before.misses());
+    }
+
+    @Test
+    @DisplayName("학생 이름이 수정되면 이전 이름에 해당하는 검색어의 개수도 무효화되어야 한다.")
+    void countCacheUpdateTest() {
+        // given
+        String name = "슬라이스";
+        Pageable pageable = PageRequest.of(1, 10);
+        studentSearchService.searchPageByName(name, pageable);
+        assertEquals(1, studentCountCache.stats().size());
+
+        // when - "슬라이스1" -> "개명" (새 이름에는 검색어가 없지만 이전 이름 때문에 개수가 바뀜)
+        Student renamed = Student.builder().name("개명").city("도시").major("전공").build();
+        publisher.publishEvent(new StudentChangedEvent(renamed, StudentChangedEvent.ChangeType.UPDATE));
+
+        // then
+        assertEquals(0, studentCountCache.stats().size());
+    }
+
+    @Test
+    @DisplayName("롤백된 트랜잭션 안에서 계산한 총 개수는 캐시에 남으면 안 된다.")
+    void countCacheRollbackTest() {
+        // given
+        String name = "롤백슬라이스";
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        // when - 새 트랜잭션에서 학생을 추가하고 개수를 읽은 뒤 롤백
+        newTransaction.executeWithoutResult(status -> {
+            for (int i = 1; i <= 15; i++) {
+                studentPageRepository.save(Student.builder().name(name + i).city("도시").major("전공").build());
+            }
+            studentPageRepository.flush();
+            studentSearchService.searchPageByName(name, PageRequest.of(1, 10));
+            status.setRollbackOnly();
+        });
+
+        // then - 롤백된 학생 수가 캐시되어 있지 않고, 다시 계산한 개수는 0
+        assertEquals(0, studentCountCache.stats().size());
+        assertEquals(0, studentSearchService.searchPageByName(name, PageRequest.of(1, 10)).getTotalElements());
+    }
+
+}
@@ -1,15 +1,28 @@
 package com.codeit.jpastudy.chap04.repository;
 
+import com.codeit.jpastudy.chap04.dto.DepartmentOrgChart;
+import com.codeit.jpastudy.chap04.dto.DepartmentSummary;
 import com.codeit.jpastudy.chap04.entity.Department;
 import com.codeit.jpastudy.chap04.entity.Employee;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,6 +37,12 @@ class DepartmentRepositoryTest {
     @Autowired
     EmployeeRepository employeeRepository;
 
+    @Autowired
+    EntityManager em;
+
+    @Value("${spring.jpa.properties.hibernate.default_batch_fetch_size}")
+    int batchFetchSize;
+
     @Test
     @DisplayName("부서 정보를 조회하면 해당 부서원들도 함께 조회되어야 한다.")
     void testFindDept() {
@@ -67,6 +86,72 @@ class DepartmentRepositoryTest {
 
     }
 
+    @Test
+    @Rollback
+    @DisplayName("사원의 부서를 변경해도 대상 부서의 사원 목록 전체를 조회하지 않아야 한다.")
+    void testChangeDeptWithoutLoadingEmployees() {
+        // given
+        Department from = departmentRepository.save(Department.builder().name("이전부서").build());
+        Department to = departmentRepository.save(Department.builder().name("대형부서").build());
+        for (int i = 1; i <= 100; i++) {
+            employeeRepository.save(Employee.builder().name("대형부서원" + i).department(to).build());
+        }
+        Employee mover = employeeRepository.save(Employee.builder().name("이동사원").department(from).build());
+        em.flush();
+        em.clear();
+
+        Employee foundEmp = employeeRepository.findById(mover.getId()).orElseThrow();
+        Department target = departmentRepository.findById(to.getId()).orElseThrow();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // when
+        foundEmp.changeDepartment(target);
+
+        // then - 사원 목록을 로딩하지 않았고, SQL도 실행되지 않았다.
+        long statements = statistics.getPrepareStatementCount();
+        boolean initialized = Hibernate.isInitialized(target.getEmployees());
+        statistics.setStatisticsEnabled(false);
+
+        assertFalse(initialized);
+        assertEquals(0, statements);
+
+        // 목록을 읽으면 DB의 100명 + 대기 중이던 이동 사원이 합쳐져 있다.
+        assertEquals(101, target.getEmployees().size());
+    }
+
+    @Test
+    @Rollback
+    @DisplayName("로딩된 두 부서 사이에서 사원을 옮겨도 사원이 삭제되지 않아야 한다. (orphanRemoval)")
+    void testChangeDeptBetweenLoadedDepartments() {
+        // given - 두 부서의 사원 목록을 모두 로딩
+        Department from = departmentRepository.save(Department.builder().name("출발부서").build());
+        Department to = departmentRepository.save(Department.builder().name("도착부서").build());
+        Employee mover = employeeRepository.save(Employee.builder().name("이동사원").department(from).build());
+        employeeRepository.save(Employee.builder().name("도착부서원").department(to).build());
+        em.flush();
+        em.clear();
+
+        Department loadedFrom = departmentRepository.findById(from.getId()).orElseThrow();
+        Department loadedTo = departmentRepository.findById(to.getId()).orElseThrow();
+        loadedFrom.getEmployees().size();
+        loadedTo.getEmployees().size();
+        Employee foundEmp = employeeRepository.findById(mover.getId()).orElseThrow();
+
+        // when
+        foundEmp.changeDepartment(loadedTo);
+        em.flush();
+        em.clear();
+
+        // then - 사원 행이 남아 있고 부서만 바뀌었다.
+        Employee moved = employeeRepository.findById(mover.getId()).orElseThrow();
+        assertEquals(to.getId(), moved.getDepartment().getId());
+        assertEquals(2, departmentRepository.findById(to.getId()).orElseThrow().getEmployees().size());
+        assertEquals(0, departmentRepository.findById(from.getId()).orElseThrow().getEmployees().size());
+    }
+
     @Test
     @DisplayName("N+1 문제 발생 예시")
     void testNPlusOneEx() {
@@ -108,6 +193,121 @@ class DepartmentRepositoryTest {
 
     }
 
+    @Test
+    @Rollback
+    @DisplayName("배치 페치: 부서 1000개의 사원 목록은 batch size 단위로 묶어서 조회되어야 한다.")
+    void testBatchFetch() {
+        // given
+        for (int i = 1; i <= 1000; i++) {
+            Department department = departmentRepository.save(Department.builder().name("배치부서" + i).build());
+            employeeRepository.save(Employee.builder().name("배치사원A" + i).department(department).build());
+            employeeRepository.save(Employee.builder().name("배치사원B" + i).department(department).build());
+        }
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // when
+        List<Department> departments = departmentRepository.findAll();
+        departments.forEach(dept -> dept.getEmployees().size());
+
+        // then - 부서 조회 1번 + 사원 목록 조회 ceil(부서 수 / batch size)번
+        long expected = 1 + (departments.size() + batchFetchSize - 1) / batchFetchSize;
+        long actual = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+
+        System.out.println("\n\n\n");
+        System.out.println("departments = " + departments.size() + ", statements = " + actual);
+        System.out.println("\n\n\n");
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("부서 + 사원 FETCH JOIN 페이징 (부서 id 먼저 페이징 후 FETCH JOIN)")
+    void testFetchJoinPaging() {
+        // given
+        PageRequest pageable = PageRequest.of(0, 2, Sort.by("id"));
+
+        // when
+        Page<Department> page = departmentRepository.findPageIncludeEmployees(pageable);
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("totalElements = " + page.getTotalElements());
+        page.forEach(dept -> {
+            System.out.println(dept);
+            System.out.println(dept.getEmployees());
+        });
+        System.out.println("\n\n\n");
+        assertTrue(page.getNumberOfElements() <= 2);
+        assertEquals(departmentRepository.count(), page.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("엔터티 그래프: 필요한 연관 데이터만 골라서 조회")
+    void testEntityGraph() {
+        // when
+        List<Department> withEmployees = departmentRepository.findWithEmployeesBy();
+        em.clear();
+        List<Department> withoutEmployees = departmentRepository.findAll();
+
+        // then
+        withEmployees.forEach(dept -> assertTrue(Hibernate.isInitialized(dept.getEmployees())));
+        withoutEmployees.forEach(dept -> assertFalse(Hibernate.isInitialized(dept.getEmployees())));
+    }
+
+    @Test
+    @Rollback
+    @DisplayName("조직도 조회: 엔터티 FETCH JOIN vs DTO 프로젝션")
+    void testOrgChartProjection() {
+        // given - 부서 200개 x 사원 100명
+        for (int i = 1; i <= 200; i++) {
+            Department department = departmentRepository.save(Department.builder().name("조직부서" + i).build());
+            em.createNativeQuery("""
+                    INSERT INTO tbl_emp (emp_name, dept_id)
+                    SELECT '조직사원' || g, :deptId FROM generate_series(1, 100) g
+                    """)
+                    .setParameter("deptId", department.getId())
+                    .executeUpdate();
+        }
+        em.flush();
+        em.clear();
+
+        // when - 엔터티로 읽어서 화면용 데이터 만들기 (모든 행이 영속성 컨텍스트에 스냅샷과 함께 올라감)
+        long start = System.currentTimeMillis();
+        List<Department> departments = departmentRepository.findAllIncludeEmployees();
+        Map<Long, Integer> entityCounts = new HashMap<>();
+        departments.forEach(dept -> entityCounts.put(dept.getId(), dept.getEmployees().size()));
+        em.flush(); // 트랜잭션 종료 시점의 더티 체킹 비용까지 포함
+        long entityElapsed = System.currentTimeMillis() - start;
+        em.clear();
+
+        // when - DTO 프로젝션
+        start = System.currentTimeMillis();
+        List<DepartmentSummary> summaries = departmentRepository.findAllSummaries();
+        List<DepartmentOrgChart> charts = departmentRepository.findOrgChart();
+        em.flush();
+        long dtoElapsed = System.currentTimeMillis() - start;
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("엔터티 조회: " + entityElapsed + "ms");
+        System.out.println("DTO 조회: " + dtoElapsed + "ms");
+        System.out.println("\n\n\n");
+
+        // DTO는 영속성 컨텍스트에 아무것도 남기지 않습니다.
+        assertEquals(0, em.unwrap(Session.class).getStatistics().getEntityCount());
+        // 사원이 있는 부서의 사원 수는 두 방식이 같아야 한다.
+        summaries.stream()
+                .filter(summary -> summary.employeeCount() > 0)
+                .forEach(summary -> assertEquals(entityCounts.get(summary.id()), summary.employeeCount().intValue()));
+        charts.forEach(chart -> assertEquals(chart.employeeCount(), chart.employeeNames().size()));
+        assertEquals(summaries.size(), charts.size());
+    }
+
     @Test
     @DisplayName("고아 객체 삭제")
     void orphanRemovalTest() {
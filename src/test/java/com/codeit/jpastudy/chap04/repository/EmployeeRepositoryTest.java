@@ -2,6 +2,7 @@ package com.codeit.jpastudy.chap04.repository;
 
 import com.codeit.jpastudy.chap04.entity.Department;
 import com.codeit.jpastudy.chap04.entity.Employee;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +11,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -88,6 +91,20 @@ class EmployeeRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("엔터티 그래프로 사원을 조회하면 부서도 함께 초기화되어 있어야 한다.")
+    void testFindWithDepartment() {
+        // when
+        Employee employee = employeeRepository.findWithDepartmentById(2L).orElseThrow();
+        List<Employee> employees = employeeRepository.findAllFetching("department");
+
+        // then
+        assertTrue(Hibernate.isInitialized(employee.getDepartment()));
+        employees.stream()
+                .filter(e -> e.getDepartment() != null)
+                .forEach(e -> assertTrue(Hibernate.isInitialized(e.getDepartment())));
+    }
+
     
 
 
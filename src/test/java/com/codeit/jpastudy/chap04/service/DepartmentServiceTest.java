@@ -0,0 +1,101 @@
+package com.codeit.jpastudy.chap04.service;
+
+import com.codeit.jpastudy.chap04.entity.Department;
+import com.codeit.jpastudy.chap04.entity.Employee;
+import com.codeit.jpastudy.chap04.repository.DepartmentRepository;
+import com.codeit.jpastudy.chap04.repository.EmployeeRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class DepartmentServiceTest {
+
+    @Autowired
+    DepartmentService departmentService;
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    EmployeeRepository employeeRepository;
+
+    @Autowired
+    EntityManager em;
+
+    private Department createDepartment(String name, int employees) {
+        Department department = departmentRepository.saveAndFlush(Department.builder().name(name).build());
+        em.createNativeQuery("""
+                INSERT INTO tbl_emp (emp_name, dept_id)
+                SELECT '사원' || g, :deptId FROM generate_series(1, :count) g
+                """)
+                .setParameter("deptId", department.getId())
+                .setParameter("count", employees)
+                .executeUpdate();
+        em.clear();
+        return department;
+    }
+
+    @Test
+    @DisplayName("사원 10만 명인 부서 삭제: cascade 삭제 vs 벌크 삭제")
+    void deleteBenchmark() {
+        // given
+        int count = 100_000;
+        Long cascadeDeptId = createDepartment("cascade부서", count).getId();
+        Long bulkDeptId = createDepartment("벌크부서", count).getId();
+
+        // when - cascade + orphanRemoval (사원 전체 조회 후 한 명씩 삭제)
+        long start = System.currentTimeMillis();
+        departmentRepository.delete(departmentRepository.findById(cascadeDeptId).orElseThrow());
+        em.flush();
+        long cascadeElapsed = System.currentTimeMillis() - start;
+        em.clear();
+
+        // when - 벌크 삭제
+        start = System.currentTimeMillis();
+        int deleted = departmentService.deleteWithEmployees(bulkDeptId);
+        long bulkElapsed = System.currentTimeMillis() - start;
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("cascade 삭제: " + cascadeElapsed + "ms");
+        System.out.println("벌크 삭제: " + bulkElapsed + "ms");
+        System.out.println("\n\n\n");
+        assertEquals(count, deleted);
+        assertTrue(departmentRepository.findById(bulkDeptId).isEmpty());
+    }
+
+    @Test
+    @DisplayName("벌크 삭제 후 영속성 컨텍스트에 삭제된 부서/사원이 남아있지 않아야 한다.")
+    void deleteKeepsContextConsistent() {
+        // given
+        Department department = createDepartment("정리부서", 10);
+        Department other = departmentRepository.saveAndFlush(Department.builder().name("남는부서").build());
+        Department loaded = departmentRepository.findById(department.getId()).orElseThrow();
+        Employee employee = loaded.getEmployees().get(0);
+        // 부서 목록을 거치지 않고 따로 조회한 사원
+        em.clear();
+        Employee standalone = employeeRepository.findById(employee.getId()).orElseThrow();
+        loaded = departmentRepository.findById(department.getId()).orElseThrow();
+        Department otherLoaded = departmentRepository.findById(other.getId()).orElseThrow();
+
+        // when
+        departmentService.deleteWithEmployees(department.getId());
+
+        // then
+        assertFalse(em.contains(loaded));
+        assertFalse(em.contains(standalone));
+        assertTrue(em.contains(otherLoaded));
+        assertNull(em.find(Employee.class, standalone.getId()));
+        assertEquals(0, employeeRepository.findAll().stream()
+                .filter(e -> e.getDepartment() != null && department.getId().equals(e.getDepartment().getId()))
+                .count());
+    }
+
+}
@@ -1,8 +1,16 @@
 package com.codeit.jpastudy.chap05.service;
 
+import com.codeit.jpastudy.chap05.dto.TransferBatchResult;
+import com.codeit.jpastudy.chap05.dto.TransferCommand;
 import com.codeit.jpastudy.chap05.entity.Account;
+import com.codeit.jpastudy.chap05.journal.TransferJournalWriter;
 import com.codeit.jpastudy.chap05.repository.AccountRepository;
 import com.codeit.jpastudy.chap05.repository.TransferRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,7 +19,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.sql.DataSource;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,6 +41,15 @@ class AccountServiceTest {
     @Autowired
     private TransferRepository transferRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransferJournalWriter transferJournalWriter;
+
+    @Autowired
+    private DataSource dataSource;
+
     private Account fromAccount;
     private Account toAccount;
 
@@ -179,7 +202,361 @@ class AccountServiceTest {
 
     }
 
+    //////////////////////////////////////////////////////////////////////////////////////
+
+    // 동시 이체 결과 집계
+    private record StressResult(int succeeded, int rejected, int failed, long elapsedMillis) {
+        double transfersPerSecond() {
+            return elapsedMillis == 0 ? succeeded : succeeded * 1000.0 / elapsedMillis;
+        }
+    }
+
+    /**
+     * 스레드 여러 개가 적은 수의 계좌 사이에서 양방향으로 이체를 반복 (높은 경합)
+     * rejected: 잔액 부족 등 업무 규칙으로 거절된 이체
+     * failed: 그 밖의 예외 (교착 상태, 재시도 초과 등)
+     */
+    private StressResult runConcurrentTransfers(List<Long> accountIds, int threads, int transfersPerThread,
+                                                TransferCall call) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < transfersPerThread; i++) {
+                    int from = random.nextInt(accountIds.size());
+                    int to = (from + 1 + random.nextInt(accountIds.size() - 1)) % accountIds.size();
+                    try {
+                        call.transfer(accountIds.get(from), accountIds.get(to), BigDecimal.valueOf(100));
+                        succeeded.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        System.out.println("이체 실패: " + e);
+                        failed.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        ready.await();
+        long begin = System.currentTimeMillis();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        long elapsed = System.currentTimeMillis() - begin;
+
+        return new StressResult(succeeded.get(), rejected.get(), failed.get(), elapsed);
+    }
+
+    @FunctionalInterface
+    private interface TransferCall {
+        void transfer(Long fromId, Long toId, BigDecimal amount);
+    }
+
+    private List<Long> createStressAccounts() {
+        List<Long> ids = new ArrayList<>(List.of(fromAccount.getId(), toAccount.getId()));
+        ids.add(accountRepository.save(new Account("333-333", "이영희", BigDecimal.valueOf(10000))).getId());
+        ids.add(accountRepository.save(new Account("444-444", "박민수", BigDecimal.valueOf(10000))).getId());
+        return ids;
+    }
+
+    private BigDecimal totalBalance(List<Long> ids) {
+        return accountRepository.findAllById(ids).stream()
+                .map(Account::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Test
+    @DisplayName("비관적 락 이체: 동시 양방향 이체에서도 교착 상태와 갱신 손실이 없어야 한다.")
+    void concurrentTransferWithLock() throws InterruptedException {
+        // given
+        List<Long> ids = createStressAccounts();
+        BigDecimal totalBefore = totalBalance(ids);
+
+        // when
+        StressResult result = runConcurrentTransfers(ids, 8, 100, accountService::transferWithLock);
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("비관적 락: " + result + ", " + String.format("%.1f", result.transfersPerSecond()) + " transfers/sec");
+        System.out.println("\n\n\n");
+        assertEquals(0, result.failed());
+        assertEquals(0, totalBefore.compareTo(totalBalance(ids)), "전체 잔액의 합은 변하지 않아야 한다.");
+        assertEquals(result.succeeded(), transferRepository.count());
+    }
+
+    @Test
+    @DisplayName("낙관적 락 이체: 버전 충돌은 재시도되고 갱신 손실이 없어야 한다.")
+    void concurrentTransferWithOptimisticRetry() throws InterruptedException {
+        // given
+        List<Long> ids = createStressAccounts();
+        BigDecimal totalBefore = totalBalance(ids);
+
+        // when
+        StressResult result = runConcurrentTransfers(ids, 8, 100, accountService::transferWithOptimisticRetry);
+
+        // then - 재시도 횟수를 넘긴 이체(failed)는 롤백되므로 돈은 사라지지 않습니다.
+        System.out.println("\n\n\n");
+        System.out.println("낙관적 락: " + result + ", " + String.format("%.1f", result.transfersPerSecond()) + " transfers/sec");
+        System.out.println("\n\n\n");
+        assertEquals(0, totalBefore.compareTo(totalBalance(ids)), "전체 잔액의 합은 변하지 않아야 한다.");
+        assertEquals(result.succeeded(), transferRepository.count());
+    }
+
+    @Test
+    @DisplayName("DB 조건부 UPDATE 이체: 잔액이 부족하면 아무것도 변경되지 않아야 한다.")
+    void transferAtomicInsufficientBalance() {
+        // when
+        assertThrows(IllegalArgumentException.class, () ->
+                accountService.transferAtomic(toAccount.getId(), fromAccount.getId(), BigDecimal.valueOf(6000)));
+
+        // then
+        Account fromAfter = accountRepository.findById(fromAccount.getId()).orElseThrow();
+        Account toAfter = accountRepository.findById(toAccount.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(10000).compareTo(fromAfter.getBalance()));
+        assertEquals(0, BigDecimal.valueOf(5000).compareTo(toAfter.getBalance()));
+        assertEquals(0, transferRepository.count());
+    }
+
+    @Test
+    @DisplayName("DB 조건부 UPDATE 이체: 계좌를 조회하지 않고 UPDATE 2번 + INSERT 1번으로 끝나야 한다.")
+    void transferAtomic() {
+        // given
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // when
+        accountService.transferAtomic(fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(2000));
+        long statements = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+
+        // then
+        assertEquals(3, statements);
+        Account fromAfter = accountRepository.findById(fromAccount.getId()).orElseThrow();
+        Account toAfter = accountRepository.findById(toAccount.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(8000).compareTo(fromAfter.getBalance()));
+        assertEquals(0, BigDecimal.valueOf(7000).compareTo(toAfter.getBalance()));
+        assertEquals(1, transferRepository.count());
+    }
+
+    @Test
+    @DisplayName("DB 조건부 UPDATE 이체: 동시 양방향 이체에서도 교착 상태와 갱신 손실이 없어야 한다.")
+    void concurrentTransferAtomic() throws InterruptedException {
+        // given
+        List<Long> ids = createStressAccounts();
+        BigDecimal totalBefore = totalBalance(ids);
+
+        // when
+        StressResult result = runConcurrentTransfers(ids, 8, 100, accountService::transferAtomic);
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("조건부 UPDATE: " + result + ", " + String.format("%.1f", result.transfersPerSecond()) + " transfers/sec");
+        System.out.println("\n\n\n");
+        assertEquals(0, result.failed());
+        assertEquals(0, totalBefore.compareTo(totalBalance(ids)), "전체 잔액의 합은 변하지 않아야 한다.");
+        assertEquals(result.succeeded(), transferRepository.count());
+    }
+
+    @Test
+    @DisplayName("일괄 이체: 실패한 요청만 건너뛰고 위치와 사유를 보고해야 한다.")
+    void transferBatchReportsFailures() {
+        // given
+        Long a = fromAccount.getId(); // 10000
+        Long b = toAccount.getId();   // 5000
+        List<TransferCommand> commands = List.of(
+                new TransferCommand(a, b, BigDecimal.valueOf(3000)),   // 성공 (a: 7000, b: 8000)
+                new TransferCommand(a, a, BigDecimal.valueOf(100)),    // 같은 계좌
+                new TransferCommand(b, a, BigDecimal.valueOf(9000)),   // 잔액 부족 (앞선 이체가 반영된 8000 기준)
+                new TransferCommand(a, -1L, BigDecimal.valueOf(100)),  // 없는 계좌
+                new TransferCommand(b, a, BigDecimal.ZERO),            // 0원
+                new TransferCommand(b, a, BigDecimal.valueOf(8000))    // 성공 (a: 15000, b: 0)
+        );
+
+        // when
+        TransferBatchResult result = accountService.transferBatch(commands);
+
+        // then
+        assertEquals(2, result.succeeded());
+        assertEquals(List.of(1, 2, 3, 4), result.failures().stream().map(TransferBatchResult.Failure::index).toList());
+        result.failures().forEach(failure -> System.out.println(failure.index() + ": " + failure.reason()));
+
+        Account aAfter = accountRepository.findById(a).orElseThrow();
+        Account bAfter = accountRepository.findById(b).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(15000).compareTo(aAfter.getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(bAfter.getBalance()));
+        assertEquals(2, transferRepository.count());
+    }
+
+    @Test
+    @DisplayName("급여 일괄 이체: 건별 트랜잭션 vs 일괄 이체")
+    void transferBatchBenchmark() {
+        // given - 회사 계좌 1개 -> 직원 계좌 100개
+        Account company = accountRepository.save(new Account("999-999", "회사", BigDecimal.valueOf(1_000_000_000)));
+        List<Long> employees = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            employees.add(accountRepository.save(new Account("500-" + i, "직원" + i, BigDecimal.ZERO)).getId());
+        }
+        int count = 2000;
+        List<TransferCommand> commands = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            commands.add(new TransferCommand(company.getId(), employees.get(i % employees.size()), BigDecimal.valueOf(1000)));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        // when - 건별 트랜잭션
+        statistics.clear();
+        long start = System.currentTimeMillis();
+        commands.forEach(c -> accountService.transferAtomic(c.fromId(), c.toId(), c.amount()));
+        long singleElapsed = System.currentTimeMillis() - start;
+        long singleTransactions = statistics.getTransactionCount();
+
+        // when - 일괄 이체
+        statistics.clear();
+        start = System.currentTimeMillis();
+        TransferBatchResult result = accountService.transferBatch(commands);
+        long batchElapsed = System.currentTimeMillis() - start;
+        long batchTransactions = statistics.getTransactionCount();
+        statistics.setStatisticsEnabled(false);
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("건별 이체: " + singleElapsed + "ms, 트랜잭션 " + singleTransactions + "번");
+        System.out.println("일괄 이체: " + batchElapsed + "ms, 트랜잭션 " + batchTransactions + "번");
+        System.out.println("\n\n\n");
+        assertEquals(count, result.succeeded());
+        assertTrue(result.failures().isEmpty());
+        assertEquals(2L * count, transferRepository.count());
+        Account companyAfter = accountRepository.findById(company.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(1_000_000_000L - 2L * count * 1000).compareTo(companyAfter.getBalance()));
+    }
+
+    @Test
+    @DisplayName("비동기 기록기(FLUSH_BEFORE_ACK): 이체가 끝나면 내역이 이미 DB에 있어야 한다.")
+    void transferWithJournal() {
+        // when
+        accountService.transferWithJournal(fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(500));
 
+        // then
+        assertEquals(1, transferRepository.count());
+        Account fromAfter = accountRepository.findById(fromAccount.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(9500).compareTo(fromAfter.getBalance()));
+    }
+
+    @Test
+    @DisplayName("비동기 기록기(FIRE_AND_FORGET): 바로 리턴하고, 내역은 배치로 묶여서 기록되어야 한다.")
+    void journalFireAndForget() throws InterruptedException {
+        // given
+        int count = 1000;
+        TransferJournalWriter.Stats before = transferJournalWriter.stats();
+
+        // when
+        for (int i = 0; i < count; i++) {
+            transferJournalWriter.append(fromAccount.getId(), toAccount.getId(), BigDecimal.ONE,
+                    TransferJournalWriter.Durability.FIRE_AND_FORGET);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (transferJournalWriter.stats().written() - before.written() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // then
+        TransferJournalWriter.Stats after = transferJournalWriter.stats();
+        System.out.println("\n\n\n");
+        System.out.println("기록 " + (after.written() - before.written()) + "건, 배치 " + (after.batches() - before.batches()) + "번");
+        System.out.println("\n\n\n");
+        assertEquals(count, after.written() - before.written());
+        assertTrue(after.batches() - before.batches() < count);
+        assertEquals(count, transferRepository.count());
+    }
+
+    // 작업을 실행하는 동안 커넥션 풀의 최대 사용 커넥션 수를 측정
+    private int peakActiveConnections(Runnable work) throws InterruptedException {
+        HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread sampler = new Thread(() -> {
+            while (!done.get()) {
+                peak.accumulateAndGet(pool.getActiveConnections(), Math::max);
+                Thread.onSpinWait();
+            }
+        });
+        sampler.start();
+        try {
+            work.run();
+        } finally {
+            done.set(true);
+            sampler.join();
+        }
+        return peak.get();
+    }
+
+    // 스레드마다 서로 다른 계좌 쌍으로 이체 (잠금 경합 없이 커넥션 사용량만 비교)
+    private Runnable concurrentPairs(List<Long> ids, int transfersPerThread, TransferCall call) {
+        return () -> {
+            ExecutorService executor = Executors.newFixedThreadPool(ids.size() / 2);
+            for (int t = 0; t < ids.size() / 2; t++) {
+                Long a = ids.get(2 * t), b = ids.get(2 * t + 1);
+                executor.submit(() -> {
+                    for (int i = 0; i < transfersPerThread; i++) {
+                        call.transfer(a, b, BigDecimal.ONE);
+                    }
+                });
+            }
+            executor.shutdown();
+            try {
+                assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("커넥션 사용량: REQUIRES_NEW 기록 vs 비동기 기록기")
+    void journalPoolUsage() throws InterruptedException {
+        // given - 스레드 4개 (REQUIRES_NEW는 스레드당 커넥션 2개 -> 풀 크기 10 이내로 맞춤)
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ids.add(accountRepository.save(new Account("700-" + i, "풀테스트" + i, BigDecimal.valueOf(100_000))).getId());
+        }
+        int perThread = 200;
+
+        // when
+        long start = System.currentTimeMillis();
+        int requiresNewPeak = peakActiveConnections(concurrentPairs(ids, perThread, accountService::transferWithLog));
+        long requiresNewElapsed = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        int journalPeak = peakActiveConnections(concurrentPairs(ids, perThread, accountService::transferWithJournal));
+        long journalElapsed = System.currentTimeMillis() - start;
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("REQUIRES_NEW: 최대 커넥션 " + requiresNewPeak + "개, " + requiresNewElapsed + "ms");
+        System.out.println("비동기 기록기: 최대 커넥션 " + journalPeak + "개, " + journalElapsed + "ms");
+        System.out.println("기록기 통계: " + transferJournalWriter.stats());
+        System.out.println("\n\n\n");
+        // 이체 스레드 4개 + 기록기 1개를 넘지 않아야 한다.
+        assertTrue(journalPeak <= ids.size() / 2 + 1);
+        assertEquals(2L * (ids.size() / 2) * perThread, transferRepository.count());
+    }
 
 
 
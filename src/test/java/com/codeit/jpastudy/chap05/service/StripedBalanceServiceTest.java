@@ -0,0 +1,196 @@
+package com.codeit.jpastudy.chap05.service;
+
+import com.codeit.jpastudy.chap05.entity.Account;
+import com.codeit.jpastudy.chap05.repository.AccountBalanceStripeRepository;
+import com.codeit.jpastudy.chap05.repository.AccountRepository;
+import com.codeit.jpastudy.chap05.repository.TransferRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 테스트 도중 주기 합산이 돌면 잔액 검증이 흔들리므로 합산 작업은 끈 상태로 실행합니다.
+@SpringBootTest(properties = "study.account.striping.consolidation.enabled=false")
+class StripedBalanceServiceTest {
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceStripeRepository stripeRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Account merchant;
+    private Account customer;
+
+    @BeforeEach
+    void setUp() {
+        merchant = accountRepository.save(new Account("900-001", "가맹점", BigDecimal.valueOf(1000)));
+        customer = accountRepository.save(new Account("900-002", "고객", BigDecimal.valueOf(1_000_000)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferRepository.deleteAll();
+        stripeRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("분할 계좌의 입금은 분할 행에 나눠서 쌓이고, 잔액은 본 계좌 + 분할 합계로 조회되어야 한다.")
+    void depositToStripes() {
+        // given
+        stripedBalanceService.enableStriping(merchant.getId(), 4);
+
+        // when
+        for (int i = 0; i < 8; i++) {
+            stripedBalanceService.deposit(merchant.getId(), BigDecimal.valueOf(100));
+        }
+
+        // then
+        assertEquals(0, BigDecimal.valueOf(1800).compareTo(stripedBalanceService.getBalance(merchant.getId())));
+        // 본 계좌 행은 그대로
+        Account main = accountRepository.findById(merchant.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(main.getBalance()));
+        stripeRepository.findAll().forEach(stripe ->
+                assertEquals(0, BigDecimal.valueOf(200).compareTo(stripe.getBalance())));
+    }
+
+    @Test
+    @DisplayName("분할 전환이 롤백되면 일반 계좌로 남아서 본 계좌 행에 입금되어야 한다.")
+    void enableStripingRollback() {
+        // given - 분할 전환 트랜잭션을 롤백
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            stripedBalanceService.enableStriping(merchant.getId(), 4);
+            status.setRollbackOnly();
+        });
+
+        // when
+        stripedBalanceService.deposit(merchant.getId(), BigDecimal.valueOf(100));
+
+        // then
+        assertFalse(stripedBalanceService.isStriped(merchant.getId()));
+        assertEquals(0, stripeRepository.count());
+        Account main = accountRepository.findById(merchant.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(1100).compareTo(main.getBalance()));
+    }
+
+    @Test
+    @DisplayName("합산 작업 후 분할 잔액은 0이 되고 본 계좌로 옮겨져야 한다.")
+    void consolidate() {
+        // given
+        stripedBalanceService.enableStriping(merchant.getId(), 4);
+        for (int i = 0; i < 10; i++) {
+            stripedBalanceService.deposit(merchant.getId(), BigDecimal.valueOf(100));
+        }
+
+        // when
+        BigDecimal moved = stripedBalanceService.consolidate(merchant.getId());
+
+        // then
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(moved));
+        Account main = accountRepository.findById(merchant.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(2000).compareTo(main.getBalance()));
+        stripeRepository.findAll().forEach(stripe -> assertEquals(0, stripe.getBalance().signum()));
+    }
+
+    @Test
+    @DisplayName("본 계좌 잔액이 부족하면 분할 잔액을 합산한 뒤 출금해야 한다.")
+    void withdrawConsolidatesWhenNeeded() {
+        // given - 본 계좌 1000 + 분할 500
+        stripedBalanceService.enableStriping(merchant.getId(), 2);
+        stripedBalanceService.deposit(merchant.getId(), BigDecimal.valueOf(500));
+
+        // when
+        stripedBalanceService.withdraw(merchant.getId(), BigDecimal.valueOf(1200));
+
+        // then
+        assertEquals(0, BigDecimal.valueOf(300).compareTo(stripedBalanceService.getBalance(merchant.getId())));
+        assertThrows(IllegalArgumentException.class,
+                () -> stripedBalanceService.withdraw(merchant.getId(), BigDecimal.valueOf(301)));
+    }
+
+    @Test
+    @DisplayName("분할 계좌로 이체하면 출금 계좌는 본 계좌 행에서, 입금은 분할 행에 반영되어야 한다.")
+    void transferToStripedAccount() {
+        // given
+        stripedBalanceService.enableStriping(merchant.getId(), 4);
+
+        // when
+        accountService.transferWithStripes(customer.getId(), merchant.getId(), BigDecimal.valueOf(3000));
+
+        // then
+        assertEquals(0, BigDecimal.valueOf(4000).compareTo(stripedBalanceService.getBalance(merchant.getId())));
+        assertEquals(0, BigDecimal.valueOf(997_000).compareTo(stripedBalanceService.getBalance(customer.getId())));
+        assertEquals(1, transferRepository.count());
+    }
+
+    // 한 계좌로 동시에 입금 (threads x depositsPerThread) 하고 초당 입금 수를 리턴
+    // 출금 계좌가 하나면 그 행에서 다시 줄을 서게 되므로 입금만 측정합니다.
+    private double concurrentDeposits(Long accountId, int threads, int depositsPerThread) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < depositsPerThread; i++) {
+                    stripedBalanceService.deposit(accountId, BigDecimal.ONE);
+                }
+                return null;
+            });
+        }
+
+        long begin = System.currentTimeMillis();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        long elapsed = Math.max(1, System.currentTimeMillis() - begin);
+        return threads * depositsPerThread * 1000.0 / elapsed;
+    }
+
+    @Test
+    @DisplayName("핫 계좌 입금: 단일 행 vs 분할 행")
+    void hotAccountBenchmark() throws InterruptedException {
+        // given
+        Account striped = accountRepository.save(new Account("900-003", "분할 가맹점", BigDecimal.ZERO));
+        stripedBalanceService.enableStriping(striped.getId(), 8);
+        int threads = 8, perThread = 200;
+
+        // when
+        double single = concurrentDeposits(merchant.getId(), threads, perThread);
+        double stripedRate = concurrentDeposits(striped.getId(), threads, perThread);
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("단일 행 입금: " + String.format("%.1f", single) + " deposits/sec");
+        System.out.println("분할 행 입금: " + String.format("%.1f", stripedRate) + " deposits/sec");
+        System.out.println("\n\n\n");
+
+        BigDecimal expected = BigDecimal.valueOf((long) threads * perThread);
+        assertEquals(0, expected.add(BigDecimal.valueOf(1000)).compareTo(stripedBalanceService.getBalance(merchant.getId())));
+        assertEquals(0, expected.compareTo(stripedBalanceService.getBalance(striped.getId())));
+    }
+}
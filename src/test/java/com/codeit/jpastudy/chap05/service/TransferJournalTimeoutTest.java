@@ -0,0 +1,135 @@
+package com.codeit.jpastudy.chap05.service;
+
+import com.codeit.jpastudy.chap05.entity.Account;
+import com.codeit.jpastudy.chap05.journal.TransferJournalWriter;
+import com.codeit.jpastudy.chap05.repository.AccountRepository;
+import com.codeit.jpastudy.chap05.repository.TransferRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 기록 대기 시간 초과를 빠르게 재현하기 위해 ack-timeout을 짧게 줄인 설정으로 실행합니다.
+@SpringBootTest(properties = "study.account.journal.ack-timeout=300ms")
+class TransferJournalTimeoutTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransferJournalWriter transferJournalWriter;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Account fromAccount;
+    private Account toAccount;
+
+    @BeforeEach
+    void setUp() {
+        fromAccount = accountRepository.save(new Account("333-333", "홍길동", BigDecimal.valueOf(10000)));
+        toAccount = accountRepository.save(new Account("444-444", "김철수", BigDecimal.valueOf(5000)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("기록 대기 시간이 지나서 롤백된 이체의 내역은 나중에도 기록되지 않아야 한다.")
+    void ackTimeoutCancelsEntry() throws Exception {
+        // given - 다른 트랜잭션이 내역 테이블을 잠그고, 기록 스레드는 앞선 내역을 INSERT 하다가 막힌 상태
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> lockHolder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE transfers IN EXCLUSIVE MODE");
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        long writtenBefore = transferJournalWriter.stats().written();
+        transferJournalWriter.append(toAccount.getId(), fromAccount.getId(), BigDecimal.ONE,
+                TransferJournalWriter.Durability.FIRE_AND_FORGET);
+        waitUntil(() -> transferJournalWriter.stats().queued() == 0);
+
+        // when - 이체 내역은 앞선 내역 뒤에서 기다리다가 시간 초과
+        try {
+            assertThrows(IllegalStateException.class, () ->
+                    accountService.transferWithJournal(fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(500)));
+        } finally {
+            release.countDown();
+            lockHolder.get(5, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+
+        // 취소된 내역 뒤에 표시용 내역을 하나 더 넣고, 그것까지 기록될 때까지 대기 (기록 스레드는 하나라 순서대로 처리)
+        transferJournalWriter.append(toAccount.getId(), fromAccount.getId(), BigDecimal.ONE,
+                TransferJournalWriter.Durability.FIRE_AND_FORGET);
+        waitUntil(() -> transferJournalWriter.stats().written() - writtenBefore >= 2);
+
+        // then - 앞선 내역과 표시용 내역만 있고, 잔액은 그대로
+        assertEquals(2, transferRepository.count());
+        assertTrue(transferRepository.findAll().stream()
+                .noneMatch(transfer -> transfer.getAmount().compareTo(BigDecimal.valueOf(500)) == 0));
+        Account fromAfter = accountRepository.findById(fromAccount.getId()).orElseThrow();
+        Account toAfter = accountRepository.findById(toAccount.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(10000).compareTo(fromAfter.getBalance()));
+        assertEquals(0, BigDecimal.valueOf(5000).compareTo(toAfter.getBalance()));
+    }
+
+    @Test
+    @DisplayName("FIRE_AND_FORGET 내역은 바깥 트랜잭션이 롤백되면 기록되지 않아야 한다.")
+    void fireAndForgetSkipsRolledBackTransaction() throws InterruptedException {
+        // given
+        long writtenBefore = transferJournalWriter.stats().written();
+
+        // when - 롤백되는 트랜잭션 안에서 기록 요청
+        transactionTemplate.executeWithoutResult(status -> {
+            transferJournalWriter.append(fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(500),
+                    TransferJournalWriter.Durability.FIRE_AND_FORGET);
+            status.setRollbackOnly();
+        });
+        transferJournalWriter.append(toAccount.getId(), fromAccount.getId(), BigDecimal.ONE,
+                TransferJournalWriter.Durability.FIRE_AND_FORGET);
+        waitUntil(() -> transferJournalWriter.stats().written() - writtenBefore >= 1);
+
+        // then - 표시용 내역만 기록됨
+        assertEquals(1, transferRepository.count());
+        assertEquals(1, transferJournalWriter.stats().written() - writtenBefore);
+    }
+
+    // 기록 스레드가 따로 돌기 때문에 조건이 맞을 때까지 최대 5초 대기
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.codeit.jpastudy.common.service;
+
+import com.codeit.jpastudy.chap03.entity.Student;
+import com.codeit.jpastudy.common.dto.BulkPersistResult;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class BulkPersistServiceTest {
+
+    @Autowired
+    BulkPersistService bulkPersistService;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    @DisplayName("청크 단위로 저장하면 저장이 끝난 뒤 영속성 컨텍스트에 엔터티가 남지 않아야 한다.")
+    void persistAllTest() {
+        // given
+        List<Student> students = new ArrayList<>();
+        for (int i = 1; i <= 20_000; i++) {
+            students.add(Student.builder()
+                    .name("대량학생" + i)
+                    .city("도시" + (i % 100))
+                    .major("전공" + (i % 30))
+                    .build());
+        }
+
+        // when
+        BulkPersistResult result = bulkPersistService.persistAll(students, 1000);
+
+        // then
+        System.out.println("\n\n\n");
+        System.out.println("rows = " + result.rows());
+        System.out.println("elapsed = " + result.elapsedMillis() + "ms");
+        System.out.println("rows/sec = " + result.rowsPerSecond());
+        System.out.println("\n\n\n");
+
+        assertEquals(students.size(), result.rows());
+        assertFalse(em.contains(students.get(0)));
+        assertFalse(em.contains(students.get(students.size() - 1)));
+    }
+
+}